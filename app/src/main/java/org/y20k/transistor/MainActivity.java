@@ -31,7 +31,9 @@ import androidx.lifecycle.ViewModelProviders;
 
 import org.y20k.transistor.collection.CollectionViewModel;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
 import org.y20k.transistor.helpers.DialogError;
+import org.y20k.transistor.helpers.ImageCache;
 import org.y20k.transistor.helpers.ImageHelper;
 import org.y20k.transistor.helpers.LogHelper;
 import org.y20k.transistor.helpers.PermissionHelper;
@@ -58,7 +60,7 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
 
     /* Main class variables */
     private CollectionViewModel mCollectionViewModel;
-    private ArrayList<Station> mStationList;
+    private StationList mStationList;
     private Station mTempStation;
 
 
@@ -67,7 +69,7 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
         super.onCreate(savedInstanceState);
 
         // initialize list of stations
-        mStationList = new ArrayList<Station>();
+        mStationList = new StationList();
 
         // initialize temp station (used by image change requests)
         mTempStation = null;
@@ -182,14 +184,12 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
             if (stationBitmap != null) {
                 station.writeImageFile(stationBitmap);
             }
-            // create copy of main list of stations
-            ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
-            // add station to new list of stations
-            newStationList.add(station);
+            // create new version of main list of stations - with station added
+            StationList newStationList = mStationList.plus(station);
             // update live data list of stations
             mCollectionViewModel.getStationList().setValue(newStationList);
-            // return new index
-            return StationListHelper.findStationId(newStationList, station.getStreamUri());
+            // return new index - in list sorted by view model
+            return StationListHelper.findStationId(mCollectionViewModel.getStationList().getValue(), station.getStreamUri());
         } else {
             // notify user and log failure to add
             String errorTitle = getResources().getString(R.string.dialog_error_title_fetch_write);
@@ -204,6 +204,25 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
     }
 
 
+    /* Adds batch of imported stations to list and updates live data - playlist files have been written already */
+    public void handleStationImport(List<Station> stations) {
+        // skip stations that have been added in the meantime - lookups use index of current list
+        StationList currentStationList = mStationList != null ? mStationList : new StationList();
+        ArrayList<Station> newStations = new ArrayList<Station>(stations.size());
+        for (Station station : stations) {
+            if (currentStationList.findStationId(station.getStreamUri()) == -1) {
+                newStations.add(station);
+            }
+        }
+        // append all at once - indexes of current list are extended once per batch
+        StationList newStationList = currentStationList.plusAll(newStations);
+        // update live data list of stations - once per batch
+        if (newStationList != currentStationList) {
+            mCollectionViewModel.getStationList().setValue(newStationList);
+        }
+    }
+
+
     /* Puts renamed station in list and updates live data */
     public int handleStationRename(Station station, String newStationName) {
 
@@ -212,12 +231,11 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
             // get collection folder
             File folder = StorageHelper.getCollectionDirectory(this);
 
-            // create copies of station and main list of stations
-            ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
+            // create copy of station
             Station newStation = new Station(station);
 
             // get position of station in list
-            int stationID = StationListHelper.findStationId(newStationList, station.getStreamUri());
+            int stationID = StationListHelper.findStationId(mStationList, station.getStreamUri());
 
             // set new name
             newStation.setStationName(newStationName);
@@ -234,8 +252,8 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
             newStation.setStationImageFile(folder);
             stationImageFile.renameTo(newStation.getStationImageFile());
 
-            // update list
-            newStationList.set(stationID, newStation);
+            // create new version of list
+            StationList newStationList = mStationList.with(stationID, newStation);
 
             // update liva data station from PlayerService - used in MainActivityFragment
             mCollectionViewModel.getPlayerServiceStation().setValue(newStation);
@@ -243,8 +261,8 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
             // update live data list of stations - used in CollectionAdapter
             mCollectionViewModel.getStationList().setValue(newStationList);
 
-            // return id of changed station
-            return StationListHelper.findStationId(newStationList, newStation.getStreamUri());
+            // return id of changed station - in list sorted by view model
+            return StationListHelper.findStationId(mCollectionViewModel.getStationList().getValue(), newStation.getStreamUri());
 
         } else {
             // name of station is null or not new - notify user
@@ -255,6 +273,43 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
     }
 
 
+    /* Stores new buffer profile of station and updates live data */
+    public int handleStationBufferProfileChange(Station station, int bufferProfile) {
+
+        // buffer profile is unchanged
+        if (station == null || station.getBufferProfile() == bufferProfile) {
+            return -1;
+        }
+
+        // get collection folder
+        File folder = StorageHelper.getCollectionDirectory(this);
+
+        // create copy of station
+        Station newStation = new Station(station);
+
+        // get position of station in list
+        int stationID = StationListHelper.findStationId(mStationList, station.getStreamUri());
+
+        // set new buffer profile - and persist it in playlist file
+        newStation.setBufferProfile(bufferProfile);
+        newStation.writePlaylistFile(folder);
+
+        // create new version of list
+        StationList newStationList = mStationList.with(stationID, newStation);
+
+        // update live data station from PlayerService, if it is the changed station - used in MainActivityFragment
+        Station playerServiceStation = mCollectionViewModel.getPlayerServiceStation().getValue();
+        if (playerServiceStation != null && playerServiceStation.streamEquals(newStation)) {
+            mCollectionViewModel.getPlayerServiceStation().setValue(newStation);
+        }
+
+        // update live data list of stations - used in CollectionAdapter
+        mCollectionViewModel.getStationList().setValue(newStationList);
+
+        return stationID;
+    }
+
+
     /* Removes given station from list and updates live data */
     public int handleStationDelete(Station station) {
 
@@ -279,10 +334,8 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
         // remove station and notify user
         if (success) {
 
-            // create copy of main list of stations
-            ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
-            // remove station from new station list
-            newStationList.remove(stationId);
+            // create new version of main list of stations - without removed station
+            StationList newStationList = mStationList.minus(stationId);
             // determine ID of next station
             if (newStationList.size() >= stationId && stationId > 0) {
                 stationId--;
@@ -360,8 +413,8 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
                 return false;
             }
 
-            // create copy of main list of stations
-            ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
+            // drop renderings of previous image
+            ImageCache.evict(mTempStation.getStationImageFile());
 
             // create a copy of mTempStation
             Station newStation = new Station(mTempStation);
@@ -369,9 +422,9 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
             // set new station image file object
             newStation.setStationImageFile(folder);
 
-            // update list
+            // create new version of list
             int stationID = StationListHelper.findStationId(mStationList, mTempStation.getStreamUri());
-            newStationList.set(stationID, newStation);
+            StationList newStationList = mStationList.with(stationID, newStation);
 
             // update liva data station from PlayerService
             mCollectionViewModel.getPlayerServiceStation().setValue(newStation);
@@ -392,10 +445,10 @@ public final class MainActivity extends AppCompatActivity implements TransistorK
 
 
     /* Creates an observer for collection of stations stored as LiveData */
-    private Observer<ArrayList<Station>> createStationListObserver() {
-        return new Observer<ArrayList<Station>>() {
+    private Observer<StationList> createStationListObserver() {
+        return new Observer<StationList>() {
             @Override
-            public void onChanged(@Nullable ArrayList<Station> newStationList) {
+            public void onChanged(@Nullable StationList newStationList) {
                 // update station list
                 mStationList = newStationList;
             }
@@ -15,15 +15,12 @@
 package org.y20k.transistor;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
 import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Build;
@@ -50,7 +47,6 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProviders;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.DefaultItemAnimator;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -62,20 +58,25 @@ import com.google.android.material.snackbar.Snackbar;
 
 import org.y20k.transistor.collection.CollectionAdapter;
 import org.y20k.transistor.collection.CollectionViewModel;
+import org.y20k.transistor.core.NowPlaying;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
+import org.y20k.transistor.core.StationReference;
+import org.y20k.transistor.helpers.ArtworkLoader;
 import org.y20k.transistor.helpers.DialogRename;
-import org.y20k.transistor.helpers.ImageHelper;
 import org.y20k.transistor.helpers.LogHelper;
 import org.y20k.transistor.helpers.NightModeHelper;
+import org.y20k.transistor.helpers.ParcelTimer;
 import org.y20k.transistor.helpers.PermissionHelper;
 import org.y20k.transistor.helpers.SleepTimerService;
+import org.y20k.transistor.helpers.StartupTimer;
+import org.y20k.transistor.helpers.StateStore;
 import org.y20k.transistor.helpers.StationContextMenu;
 import org.y20k.transistor.helpers.StationFetcher;
 import org.y20k.transistor.helpers.StationListHelper;
 import org.y20k.transistor.helpers.StorageHelper;
 import org.y20k.transistor.helpers.TransistorKeys;
 
-import java.util.ArrayList;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
@@ -108,16 +109,18 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     private TextView mStationDataSheetMimeType;
     private TextView mStationDataSheetChannelCount;
     private TextView mStationDataSheetSampleRate;
+    private TextView mStationDataSheetStartupTime;
     private ConstraintLayout mOnboardingLayout;
     private SwipeRefreshLayout mSwipeRefreshLayout;
     private RecyclerView mRecyclerView;
     private LinearLayoutManager mLayoutManager;
     private CollectionViewModel mCollectionViewModel;
     private BottomSheetBehavior mPlayerBottomSheetBehavior;
-    private BroadcastReceiver mSleepTimerStartedReceiver;
+    private StateStore.Observer<Long> mSleepTimerObserver;
     private String mCurrentStationUrl;
     private Station mCurrentStation = null;
     private Station mPlayerServiceStation;
+    private NowPlaying mNowPlaying;
     private Uri mNewStationUri;
     private boolean mSleepTimerRunning;
     private String mSleepTimerNotificationMessage;
@@ -145,8 +148,8 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
         // create collection adapter
         mCollectionAdapter = new CollectionAdapter(mActivity, mCurrentStationUrl);
 
-        // initialize broadcast receivers
-        initializeBroadcastReceivers();
+        // observe state published by services
+        registerObservers();
     }
 
 
@@ -174,6 +177,7 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
         mStationDataSheetMimeType = mRootView.findViewById(R.id.player_sheet_p_mime);
         mStationDataSheetChannelCount = mRootView.findViewById(R.id.player_sheet_p_channels);
         mStationDataSheetSampleRate = mRootView.findViewById(R.id.player_sheet_p_samplerate);
+        mStationDataSheetStartupTime = mRootView.findViewById(R.id.player_sheet_p_startup);
 
         // set up RecyclerView
         mRecyclerView.setItemAnimator(new DefaultItemAnimator());
@@ -199,6 +203,7 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
         mCollectionViewModel = ViewModelProviders.of((AppCompatActivity) mActivity).get(CollectionViewModel.class);
         mCollectionViewModel.getStationList().observe((LifecycleOwner) mActivity, createStationListObserver());
         mCollectionViewModel.getPlayerServiceStation().observe((LifecycleOwner) mActivity, createStationObserver());
+        mCollectionViewModel.getNowPlaying().observe((LifecycleOwner) mActivity, createNowPlayingObserver());
 
         return mRootView;
     }
@@ -240,8 +245,8 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     @Override
     public void onDestroy() {
         super.onDestroy();
-        // unregister Broadcast Receivers
-        unregisterBroadcastReceivers();
+        // stop observing state published by services
+        unregisterObservers();
     }
 
 
@@ -286,7 +291,7 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     /* Refreshes list of stations - used by pull to refresh */
     private void refreshList() {
         // manually refresh list of stations (force reload) - useful when editing playlist files manually outside of Transistor
-        ArrayList<Station> newStationList = StationListHelper.loadStationListFromStorage(mActivity);
+        StationList newStationList = StationListHelper.loadStationListFromStorage(mActivity);
         mCollectionViewModel.getStationList().setValue(newStationList);
 
         // notify user
@@ -323,7 +328,8 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     private void startPlayback(Station station) {
         Intent intent = new Intent(mActivity, PlayerService.class);
         intent.setAction(ACTION_PLAY);
-        intent.putExtra(EXTRA_STATION, station);
+        intent.putExtra(EXTRA_STATION, new StationReference(station));
+        ParcelTimer.measure(station);
         mActivity.startService(intent);
         mPlayerServiceStation = station;
         LogHelper.v(LOG_TAG, "Starting player service.");
@@ -346,8 +352,14 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
 
         // CASE: user tapped on notification
         if (intent.hasExtra(EXTRA_STATION)) {
-            // get station from notification
-            station = intent.getParcelableExtra(EXTRA_STATION);
+            // get station from notification - look it up in list
+            StationReference stationReference = intent.getParcelableExtra(EXTRA_STATION);
+            station = stationReference.resolve(mCollectionAdapter.getStationList());
+            if (station == null) {
+                // station is not in list (e.g. its file was removed outside the app) - show what the reference knows about it
+                LogHelper.w(LOG_TAG, "Unable to find full station for " + stationReference.toString());
+                station = stationReference.toStation();
+            }
             mPlayerServiceStation = station;
             startPlayback = false;
         }
@@ -487,6 +499,15 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
             }
         });
 
+        mStationDataSheetStartupTime.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View view) {
+                longPressFeedback(R.string.toastmessage_long_press_export_startup_times);
+                exportStartupTimes();
+                return true;
+            }
+        });
+
         mPlayerStationImage.setOnLongClickListener(new View.OnLongClickListener() {
             @Override
             public boolean onLongClick(View view) {
@@ -582,10 +603,8 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
 
     /*  Setup station name, image and stream url */
     private void setupStationMainViews(Station station) {
-        ImageHelper imageHelper = new ImageHelper(station, mActivity);
-        Bitmap stationImage = imageHelper.createSquareImage(192, false);
         mPlayerStationName.setText(station.getStationName());
-        mPlayerStationImage.setImageBitmap(stationImage);
+        ArtworkLoader.load(mActivity, station, 192, mPlayerStationImage);
         // round station image corners, if possible
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             mPlayerStationImage.setClipToOutline(true);
@@ -665,7 +684,13 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
 
     /* Setup station now playing metadata views */
     private void setupStationMetadataViews(Station station) {
-        String stationMetadata = station.getMetadata();
+        NowPlaying nowPlaying = getNowPlaying(station);
+        setupStationMetadataViews(nowPlaying != null ? nowPlaying.getMetadata() : station.getMetadata());
+    }
+
+
+    /* Setup now playing metadata views with given stream title */
+    private void setupStationMetadataViews(String stationMetadata) {
         if (isAdded() && stationMetadata != null) {
             if (stationMetadata.equals("")) {
                 stationMetadata = mActivity.getString(R.string.player_sheet_p_no_data);
@@ -686,16 +711,43 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     /* Setup extended metadata information */
     private void setupExtendedMetaDataViews(Station station) {
 
+        // fill and show mime type, channel count and sample rate
+        NowPlaying nowPlaying = getNowPlaying(station);
+        if (nowPlaying != null) {
+            setupStreamFormatViews(nowPlaying.getMimeType(), nowPlaying.getChannelCount(), nowPlaying.getSampleRate());
+        } else {
+            setupStreamFormatViews(station.getMimeType(), station.getChannelCount(), station.getSampleRate());
+        }
+
+        // fill and show startup time summary
+        StartupTimer.Summary startupSummary = station.getStreamUri() != null ? StartupTimer.getSummary(station.getStreamUri().toString()) : null;
+        if (startupSummary != null) {
+            mStationDataSheetStartupTime.setText(getString(R.string.player_sheet_p_startup_time, startupSummary.getMedian(), startupSummary.getPercentile90(), startupSummary.getCount()));
+        } else {
+            mStationDataSheetStartupTime.setText(R.string.player_sheet_p_no_data);
+        }
+
+//        // fill and show bit rate
+//        if (station.getBitrate() > 0) {
+//            mStationDataSheetBitRate.setText(String.valueOf(station.getBitrate()));
+//        } else {
+//            mStationDataSheetBitRate.setText(R.string.player_sheet_p_no_data);
+//        }
+
+    }
+
+
+    /* Setup stream format views - mime type, channel count and sample rate */
+    private void setupStreamFormatViews(String mimeType, int channelCount, int sampleRate) {
+
         // fill and show mime type
-        String mimeType = station.getMimeType();
-        if (!mimeType.equals("")) {
+        if (mimeType != null && !mimeType.equals("")) {
             mStationDataSheetMimeType.setText(mimeType);
         } else {
             mStationDataSheetMimeType.setText(R.string.player_sheet_p_no_data);
         }
 
         // fill and show channel count
-        int channelCount = station.getChannelCount();
         if (channelCount > 0) {
             String channelCountString = String.valueOf(channelCount);
             mStationDataSheetChannelCount.setText(channelCountString);
@@ -704,21 +756,21 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
         }
 
         // fill and show sample rate
-        int sampleRate = station.getSampleRate();
         if (sampleRate > 0) {
             String sampleRateString = String.valueOf(sampleRate);
             mStationDataSheetSampleRate.setText(sampleRateString);
         } else {
             mStationDataSheetSampleRate.setText(R.string.player_sheet_p_no_data);
         }
+    }
 
-//        // fill and show bit rate
-//        if (station.getBitrate() > 0) {
-//            mStationDataSheetBitRate.setText(String.valueOf(station.getBitrate()));
-//        } else {
-//            mStationDataSheetBitRate.setText(R.string.player_sheet_p_no_data);
-//        }
 
+    /* Returns what player service is playing on given station - null if station is not playing */
+    private NowPlaying getNowPlaying(Station station) {
+        if (mNowPlaying != null && station.getPlaybackState() != PLAYBACK_STATE_STOPPED && mNowPlaying.belongsTo(station)) {
+            return mNowPlaying;
+        }
+        return null;
     }
 
 
@@ -812,14 +864,14 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
                 // make room for notification
                 int notificationHeight = mSleepTimerNotification.getView().getHeight();
                 mPlayerBottomSheetBehavior.setPeekHeight(convertDpToPx(PLAYER_SHEET_PEEK_HEIGHT) + notificationHeight);
-                mStationDataSheetSampleRate.setPadding(0,0,0,notificationHeight);
+                mStationDataSheetStartupTime.setPadding(0,0,0,notificationHeight);
             }
             @Override
             public void onDismissed(Snackbar transientBottomBar, int event) {
                 super.onDismissed(transientBottomBar, event);
                 // reset peek height
                 mPlayerBottomSheetBehavior.setPeekHeight(convertDpToPx(PLAYER_SHEET_PEEK_HEIGHT));
-                mStationDataSheetSampleRate.setPadding(0,0,0,0);
+                mStationDataSheetStartupTime.setPadding(0,0,0,0);
             }
         });
         // stretch Snackbar
@@ -866,19 +918,6 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     }
 
 
-    /* Find station in list for given Uri */
-    private Station findStationByUri(Uri streamUri, ArrayList<Station> stationList) {
-        for (Station station :  stationList) {
-            if (station.getStreamUri().equals(streamUri)) {
-                // found matching station
-                return station;
-            }
-        }
-        // default return
-        return null;
-    }
-
-
     /* Copy station data to system clipboard */
     private void copyToClipboard(int contentType) {
 
@@ -889,8 +928,10 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
         // set clip text and notification text
         switch (contentType) {
             case COPY_STATION_ALL:
-                if (mCurrentStation.getMetadata() != null) {
-                    clipboardText = mCurrentStation.getStationName() +  " - " +  mCurrentStation.getMetadata() + " (" +  mCurrentStation.getStreamUri().toString() + ")";
+                NowPlaying nowPlaying = getNowPlaying(mCurrentStation);
+                String stationMetadata = nowPlaying != null ? nowPlaying.getMetadata() : mCurrentStation.getMetadata();
+                if (stationMetadata != null) {
+                    clipboardText = mCurrentStation.getStationName() +  " - " +  stationMetadata + " (" +  mCurrentStation.getStreamUri().toString() + ")";
                 } else {
                     clipboardText = mCurrentStation.getStationName() + " (" + mCurrentStation.getStreamUri().toString() + ")";
                 }
@@ -919,6 +960,18 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     }
 
 
+    /* Shares startup time percentiles of all stations as CSV */
+    private void exportStartupTimes() {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/csv");
+        intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.player_sheet_startup_export_chooser));
+        intent.putExtra(Intent.EXTRA_TEXT, StartupTimer.exportCsv());
+        if (intent.resolveActivity(mActivity.getPackageManager()) != null) {
+            startActivity(Intent.createChooser(intent, getString(R.string.player_sheet_startup_export_chooser)));
+        }
+    }
+
+
     /* Inform user and give haptic feedback (vibration) */
     private void longPressFeedback(int stringResource) {
         // inform user
@@ -933,17 +986,17 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
 
 
     /* Creates an observer for collection of stations stored as LiveData */
-    private Observer<ArrayList<Station>> createStationListObserver() {
-        return new Observer<ArrayList<Station>>() {
+    private Observer<StationList> createStationListObserver() {
+        return new Observer<StationList>() {
             @Override
-            public void onChanged(@Nullable ArrayList<Station> newStationList) {
+            public void onChanged(@Nullable StationList newStationList) {
                 if (newStationList.size() == 0) {
                     // hide player
                     setupPlayer(null);
                 } else if (mCurrentStation == null) {
                     // restore last station
                     if (mCurrentStationUrl != null) {
-                        mCurrentStation = findStationByUri(Uri.parse(mCurrentStationUrl), newStationList);
+                        mCurrentStation = newStationList.findStation(Uri.parse(mCurrentStationUrl));
                     } else {
                         mCurrentStation = newStationList.get(0);
                     }
@@ -962,6 +1015,22 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     }
 
 
+    /* Creates an observer for stream title and format from player service stored as LiveData */
+    private Observer<NowPlaying> createNowPlayingObserver() {
+        return new Observer<NowPlaying>() {
+            @Override
+            public void onChanged(@Nullable NowPlaying nowPlaying) {
+                mNowPlaying = nowPlaying;
+                // update player views - only if they show the station that is playing
+                if (nowPlaying != null && nowPlaying.belongsTo(mCurrentStation)) {
+                    setupStationMetadataViews(nowPlaying.getMetadata());
+                    setupStreamFormatViews(nowPlaying.getMimeType(), nowPlaying.getChannelCount(), nowPlaying.getSampleRate());
+                }
+            }
+        };
+    }
+
+
     /* Creates an observer for station from player service stored as LiveData */
     private Observer<Station> createStationObserver() {
         return new Observer<Station>() {
@@ -986,9 +1055,7 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
                     }
                     // CASE: IMAGE
                     else if (newImageSize != oldImageSize) {
-                        ImageHelper imageHelper = new ImageHelper(newStation, mActivity);
-                        Bitmap stationImage = imageHelper.createSquareImage(192, false);
-                        mPlayerStationImage.setImageBitmap(stationImage);
+                        ArtworkLoader.load(mActivity, newStation, 192, mPlayerStationImage);
                         // round station image corners, if possible
                         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                             mPlayerStationImage.setClipToOutline(true);
@@ -1024,14 +1091,12 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
     }
 
 
-    /* Initializes broadcast receivers for onCreate */
-    private void initializeBroadcastReceivers() {
-        // RECEIVER: sleep timer service sends updates
-        mSleepTimerStartedReceiver = new BroadcastReceiver() {
+    /* Registers observers for onCreate */
+    private void registerObservers() {
+        // OBSERVER: sleep timer service publishes remaining time
+        mSleepTimerObserver = new StateStore.Observer<Long>() {
             @Override
-            public void onReceive(Context context, Intent intent) {
-                // get duration from intent
-                long remaining = intent.getLongExtra(EXTRA_TIMER_REMAINING, 0);
+            public void onChanged(Long remaining) {
                 if (mSleepTimerNotification != null && remaining > 0) {
                     // update existing notification
                     mSleepTimerNotification.setText(mSleepTimerNotificationMessage + getReadableTime(remaining));
@@ -1042,15 +1107,14 @@ public final class MainActivityFragment extends Fragment implements TransistorKe
                 }
             }
         };
-        IntentFilter sleepTimerIntentFilter = new IntentFilter(ACTION_TIMER_RUNNING);
-        LocalBroadcastManager.getInstance(mActivity).registerReceiver(mSleepTimerStartedReceiver, sleepTimerIntentFilter);
+        StateStore.TIMER_REMAINING.subscribe(mSleepTimerObserver);
     }
 
 
-    /* Unregisters broadcast receivers */
-    private void unregisterBroadcastReceivers() {
-        mCollectionAdapter.unregisterBroadcastReceivers(mActivity);
-        LocalBroadcastManager.getInstance(mActivity).unregisterReceiver(mSleepTimerStartedReceiver);
+    /* Unregisters observers */
+    private void unregisterObservers() {
+        mCollectionAdapter.unregisterObservers();
+        StateStore.TIMER_REMAINING.unsubscribe(mSleepTimerObserver);
     }
 
 
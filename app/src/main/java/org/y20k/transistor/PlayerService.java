@@ -23,15 +23,17 @@ import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.media.AudioManager;
 import android.media.audiofx.AudioEffect;
+import android.net.Uri;
 import android.net.wifi.WifiManager;
 import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
 import android.os.PowerManager;
 import android.os.RemoteException;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.support.v4.media.MediaBrowserCompat;
 import android.support.v4.media.MediaMetadataCompat;
@@ -43,7 +45,6 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.media.AudioAttributesCompat;
 import androidx.media.MediaBrowserServiceCompat;
 import androidx.media.session.MediaButtonReceiver;
@@ -79,19 +80,30 @@ import com.google.android.exoplayer2.upstream.DefaultAllocator;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.util.Util;
 
+import org.y20k.transistor.core.NowPlaying;
+import org.y20k.transistor.core.PlaybackState;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationReference;
 import org.y20k.transistor.helpers.AudioFocusAwarePlayer;
 import org.y20k.transistor.helpers.AudioFocusHelper;
 import org.y20k.transistor.helpers.AudioFocusRequestCompat;
+import org.y20k.transistor.helpers.CollectionWatcher;
+import org.y20k.transistor.helpers.HandoffDataSource;
 import org.y20k.transistor.helpers.LogHelper;
 import org.y20k.transistor.helpers.NotificationHelper;
 import org.y20k.transistor.helpers.PackageValidator;
+import org.y20k.transistor.helpers.PlaybackArtwork;
+import org.y20k.transistor.helpers.PlaybackUpdateScheduler;
+import org.y20k.transistor.helpers.StartupTimer;
+import org.y20k.transistor.helpers.StateStore;
 import org.y20k.transistor.helpers.StationListProvider;
+import org.y20k.transistor.helpers.StreamPrewarmer;
+import org.y20k.transistor.helpers.StreamProbeCache;
 import org.y20k.transistor.helpers.TransistorKeys;
 
 import java.io.IOException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -116,10 +128,16 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
     private static final String LOG_TAG = PlayerService.class.getSimpleName();
 
 
+    /* Keys */
+    private static final long CROSSFADE_DURATION = 800L;
+    private static final long CROSSFADE_STEP = 40L;
+
+
     /* Main class variables */
     private static Station mStation;
     private PackageValidator mPackageValidator;
     private StationListProvider mStationListProvider;
+    private CollectionWatcher.Listener mCollectionWatcherListener;
     private AudioFocusHelper mAudioFocusHelper;
     private AudioFocusRequestCompat mAudioFocusRequest;
     private static MediaSessionCompat mSession;
@@ -130,6 +148,16 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
     private WifiManager.WifiLock mWifiLock;
     private PowerManager.WakeLock mWakeLock;
     private static SimpleExoPlayer mPlayer;
+    private int mPlayerBufferProfile;
+    private HandoffDataSource.Factory mDataSourceFactory;
+    private SimpleExoPlayer mStandbyPlayer;
+    private int mStandbyBufferProfile;
+    private HandoffDataSource.Factory mStandbyDataSourceFactory;
+    private Station mStandbyStation;
+    private Player.EventListener mStandbyPlayerListener;
+    private Handler mCrossfadeHandler;
+    private PlaybackUpdateScheduler mUpdateScheduler;
+    private long mCrossfadeStartTime;
     private String mUserAgent;
 
 
@@ -145,6 +173,9 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         mStationMetadataReceived = false;
         mPlayerInitLock = false;
         mSession = createMediaSession(this);
+        mCrossfadeHandler = new Handler();
+        mUpdateScheduler = new PlaybackUpdateScheduler(createUpdateTarget());
+        mStandbyPlayerListener = createStandbyPlayerListener();
 
         // set user agent
         mUserAgent = Util.getUserAgent(this, APPLICATION_NAME);
@@ -158,6 +189,10 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         mStationListProvider = new StationListProvider();
         mPackageValidator = new PackageValidator(this);
 
+        // keep list of browsable stations in sync with collection folder
+        mCollectionWatcherListener = createCollectionWatcherListener();
+        CollectionWatcher.register(this, mCollectionWatcherListener);
+
         // create audio focus helper
         mAudioFocusHelper = new AudioFocusHelper(this);
 
@@ -173,7 +208,7 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         }
 
         // get instance of mPlayer
-        createPlayer();
+        createPlayer(BUFFER_PROFILE_BALANCED);
     }
 
 
@@ -194,17 +229,14 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             // reset current station if necessary
             if (mStation != null && mStation.getPlaybackState() != PLAYBACK_STATE_STOPPED) {
                 mStation.resetState();
-                // send local broadcast: stopped
-                Intent intentStateBuffering = new Intent();
-                intentStateBuffering.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-                intentStateBuffering.putExtra(EXTRA_STATION, mStation);
-                LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(intentStateBuffering);
-                LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> PLAYBACK_STATE_STOPPED");
+                // publish state: stopped
+                publishPlaybackState();
             }
 
-            // get URL of station from intent
+            // get station from intent
             if (intent.hasExtra(EXTRA_STATION)) {
-                mStation = intent.getParcelableExtra(EXTRA_STATION);
+                StationReference stationReference = intent.getParcelableExtra(EXTRA_STATION);
+                mStation = resolveStation(stationReference);
             }
 
             // update controller - start playback
@@ -249,6 +281,7 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             // extract IceCast metadata
             if (entry instanceof IcyInfo) {
                 final IcyInfo icyInfo = ((IcyInfo) entry);
+                markStartupStage(StartupTimer.STAGE_METADATA);
                 updateMetadata(icyInfo.title);
             } else if (entry instanceof IcyHeaders) {
                 final IcyHeaders icyHeaders = ((IcyHeaders) entry);
@@ -270,6 +303,7 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             case STATE_BUFFERING:
                 // player is not able to immediately play from the current position.
                 LogHelper.v(LOG_TAG, "State of Player has changed: BUFFERING");
+                markStartupStage(StartupTimer.STAGE_BUFFERING);
 
                 // set playback state
                 mStation.setPlaybackState(PLAYBACK_STATE_LOADING_STATION);
@@ -277,14 +311,10 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
                 // update notification
                 mStation.setMetadata(this.getString(R.string.descr_station_stream_loading));
-                NotificationHelper.update(this, mStation, mSession);
-
-                // send local broadcast: buffering
-                Intent intentStateBuffering = new Intent();
-                intentStateBuffering.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-                intentStateBuffering.putExtra(EXTRA_STATION, mStation);
-                LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(intentStateBuffering);
-                LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> PLAYBACK_STATE_LOADING_STATION");
+                mUpdateScheduler.schedule(PlaybackUpdateScheduler.UPDATE_NOTIFICATION);
+
+                // publish state: buffering
+                publishPlaybackState();
                 break;
 
             case STATE_ENDED:
@@ -300,17 +330,16 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             case STATE_READY:
                 // player is able to immediately play from the current position.
                 LogHelper.v(LOG_TAG, "State of Player has changed: READY");
+                markStartupStage(StartupTimer.STAGE_READY);
 
+                boolean playbackStarted = false;
                 if (mStation.getPlaybackState() == PLAYBACK_STATE_LOADING_STATION) {
                     // update playback state
                     mStation.setPlaybackState(PLAYBACK_STATE_STARTED);
                     saveAppState();
-                    // send local broadcast: buffering finished - playback started
-                    Intent intentStateReady = new Intent();
-                    intentStateReady.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-                    intentStateReady.putExtra(EXTRA_STATION, mStation);
-                    LocalBroadcastManager.getInstance(this.getApplication()).sendBroadcast(intentStateReady);
-                    LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> PLAYBACK_STATE_STARTED");
+                    // publish state: buffering finished - playback started
+                    publishPlaybackState();
+                    playbackStarted = true;
                 }
 
                 // check for race between onPlayerStateChanged and MetadataHelper
@@ -318,8 +347,19 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
                     mStation.setMetadata(mStation.getStationName());
                 }
 
-                // update notification
-                NotificationHelper.update(this, mStation, mSession);
+                // update notification - right away, if playback has just started
+                if (playbackStarted) {
+                    mUpdateScheduler.flush(PlaybackUpdateScheduler.UPDATE_NOTIFICATION);
+                } else {
+                    mUpdateScheduler.schedule(PlaybackUpdateScheduler.UPDATE_NOTIFICATION);
+                }
+
+                // fade out previous station - or use the idle background slot to pre-load the next station
+                if (isStandbyPlayerOutgoing()) {
+                    startCrossfade();
+                } else if (playWhenReady) {
+                    preloadNextStation();
+                }
 
                 break;
 
@@ -341,6 +381,10 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             case TYPE_SOURCE:
                 // error occurred loading data from a MediaSource.
                 LogHelper.e(LOG_TAG, "An error occurred. Type SOURCE: " + error.getSourceException().toString());
+                // stream may have moved - probe again next time
+                if (mStation != null && mStation.getStreamUri() != null) {
+                    StreamProbeCache.invalidate(mStation.getStreamUri().toString());
+                }
                 break;
             case TYPE_UNEXPECTED:
                 // error was an unexpected RuntimeException.
@@ -409,12 +453,8 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
                 mStation.setSampleRate(format.sampleRate);
                 mStation.setBitrate(format.bitrate);
 
-                // send local broadcast
-                Intent intent = new Intent();
-                intent.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-                intent.putExtra(EXTRA_STATION, mStation);
-                LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(intent);
-                LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> EXTRA_STATION");
+                // stream format is shown in player sheet only - not a change of the collection
+                publishNowPlaying();
             }
         }
     }
@@ -492,6 +532,7 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
     @Override
     public void pause() {
         // just stop the stream (method required by AudioFocusAwarePlayer)
+        finishCrossfade();
         mPlayer.setPlayWhenReady(false);
     }
 
@@ -513,7 +554,12 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
     @Override
     public void onAudioSessionId(EventTime eventTime, int audioSessionId) {
-        // integrate with system equalizer (AudioFX)
+        openAudioEffectSession(audioSessionId);
+    }
+
+
+    /* Integrates given audio session with system equalizer (AudioFX) */
+    private void openAudioEffectSession(int audioSessionId) {
         final Intent intent = new Intent(AudioEffect.ACTION_OPEN_AUDIO_EFFECT_CONTROL_SESSION);
         intent.putExtra(AudioEffect.EXTRA_AUDIO_SESSION, audioSessionId);
         intent.putExtra(AudioEffect.EXTRA_PACKAGE_NAME, getPackageName());
@@ -527,6 +573,9 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
         LogHelper.v(LOG_TAG, "onDestroy called.");
 
+        // stop watching collection folder
+        CollectionWatcher.unregister(mCollectionWatcherListener);
+
         // stop playback
         if (mStation != null && mStation.getPlaybackState() != PLAYBACK_STATE_STOPPED) {
             mController.getTransportControls().stop();
@@ -541,13 +590,16 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
             mSession.release();
         }
 
-        // remove analytics listener
-        mPlayer.removeAnalyticsListener(this);
+        // drop pending notification updates and artwork
+        mUpdateScheduler.cancel();
+        PlaybackArtwork.clear();
 
-        // release player
+        // release player and player in background slot
         if (mPlayer != null) {
+            detachPlayerListeners(mPlayer);
             releasePlayer();
         }
+        releaseStandbyPlayer();
 
         // cancel notification
         stopForeground(true);
@@ -593,27 +645,51 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         if (mStation == null || mPlayer == null ||  mSession == null) {
             LogHelper.e(LOG_TAG, "Unable to start playback. An error occurred. Station is probably NULL.");
             saveAppState();
-            // send local broadcast: playback stopped
-            Intent intent = new Intent();
-            intent.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-            intent.putExtra(EXTRA_ERROR_OCCURRED, true);
-            LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+            // publish event: station lost - not replayed, observers that come later must not reload again
+            StateStore.PLAYBACK_STATE.publishEvent(PlaybackState.error());
             // stop player service
             stopSelf();
             return;
         }
 
+        // start measuring time to first audio - continues the measurement of a tap in the station list
+        StartupTimer.startPlayback(this, mStation);
+
         // string representation of the stream uri of the previous station
         String previousStationUrlString;
-
-        // stop running mPlayer, if necessary - set type playback change accordingly
         if (mPlayer.getPlayWhenReady()) {
-            mPlayer.setPlayWhenReady(false);
-            mPlayer.stop();
             previousStationUrlString = PreferenceManager.getDefaultSharedPreferences(getApplication()).getString(PREF_STATION_URL, null);
         } else {
             previousStationUrlString = null;
         }
+        boolean switchStation = previousStationUrlString != null && mStation.getStreamUri() != null && !previousStationUrlString.equals(mStation.getStreamUri().toString());
+        boolean preloaded = mStandbyStation != null && mStandbyStation.streamEquals(mStation) && mStandbyPlayer.getPlaybackState() != Player.STATE_IDLE;
+
+        if (preloaded) {
+            // CASE: station has been pre-loaded in background slot - swap slots, previous station keeps playing until the swap is done
+            swapPlayers(switchStation);
+        } else if (switchStation) {
+            // CASE: switching stations - previous station keeps playing in background slot until new station is ready
+            swapPlayers(true);
+            if (mPlayer == null || mStation.getBufferProfile() != mPlayerBufferProfile) {
+                createPlayer(mStation.getBufferProfile());
+            } else {
+                mPlayer.stop();
+                releaseProbeConnection();
+            }
+        } else {
+            // CASE: nothing to fade out - stop running mPlayer, if necessary
+            if (mPlayer.getPlayWhenReady()) {
+                mPlayer.setPlayWhenReady(false);
+                mPlayer.stop();
+            }
+            // background slot may hold a pre-loaded station or a station that is still fading out
+            resetStandbyPlayer();
+            // recreate player, if station needs a different buffer profile - LoadControl is fixed for the lifetime of a player
+            if (mStation.getBufferProfile() != mPlayerBufferProfile) {
+                createPlayer(mStation.getBufferProfile());
+            }
+        }
 
         // set and save state
         mStationMetadataReceived = false;
@@ -631,8 +707,16 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
         // request audio focus and initialize media mPlayer
         if (mStation.getStreamUri() != null && mAudioFocusHelper.requestAudioFocus(mAudioFocusRequest)) {
-            // initialize player and start playback
-            initializePlayer();
+            if (preloaded) {
+                // pre-loaded player has reported its tracks and audio session to the background listener - catch up
+                onTracksChanged(mPlayer.getCurrentTrackGroups(), mPlayer.getCurrentTrackSelections());
+                openAudioEffectSession(mPlayer.getAudioSessionId());
+            } else {
+                // initialize player
+                initializePlayer();
+            }
+            // start playback - silent while previous station is still playing, the crossfade starts when new station is ready
+            mPlayer.setVolume(isStandbyPlayerOutgoing() ? 0f : 1f);
             mPlayer.setPlayWhenReady(true);
             LogHelper.v(LOG_TAG, "Starting playback. Station name:" + mStation.getStationName());
 
@@ -641,17 +725,14 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
             // put up notification
             NotificationHelper.show(this, mSession, mStation);
+            mUpdateScheduler.markApplied(PlaybackUpdateScheduler.UPDATE_NOTIFICATION | PlaybackUpdateScheduler.UPDATE_SESSION_METADATA);
+        } else {
+            // playback did not start - previous station must not keep playing in background slot
+            finishCrossfade();
         }
 
-        // send local broadcast: buffering
-        Intent intent = new Intent();
-        intent.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-        intent.putExtra(EXTRA_STATION, mStation);
-        if (previousStationUrlString != null) {
-            intent.putExtra(EXTRA_PLAYBACK_STATE_PREVIOUS_STATION, previousStationUrlString);
-        }
-        LocalBroadcastManager.getInstance(this.getApplication()).sendBroadcast(intent);
-        LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> PLAYBACK_STATE_LOADING_STATION");
+        // publish state: buffering - previous station counts as stopped, since only one station is active
+        publishPlaybackState();
 
         // register headphone listener
         IntentFilter headphoneUnplugIntentFilter = new IntentFilter(AudioManager.ACTION_AUDIO_BECOMING_NOISY);
@@ -666,11 +747,8 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         if (mStation == null || mPlayer == null || mSession == null) {
             LogHelper.e(LOG_TAG, "Stopping playback. An error occurred. Station is probably NULL.");
             saveAppState();
-            // send local broadcast: playback stopped
-            Intent intent = new Intent();
-            intent.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-            intent.putExtra(EXTRA_ERROR_OCCURRED, true);
-            LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+            // publish event: station lost - not replayed, observers that come later must not reload again
+            StateStore.PLAYBACK_STATE.publishEvent(PlaybackState.error());
             // unregister headphone listener
             unregisterHeadphoneUnplugReceiver();
             // stop player service
@@ -694,29 +772,29 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         // stop playback
         mPlayer.setPlayWhenReady(false); // todo empty buffer
         mPlayer.stop();
+        releaseProbeConnection();
+        resetStandbyPlayer();
         LogHelper.v(LOG_TAG, "Stopping playback. Station name:" + mStation.getStationName());
 
         // give up audio focus
         mAudioFocusHelper.abandonAudioFocus(mAudioFocusRequest);
 
         if (dismissNotification) {
+            // drop pending updates - they must not bring back the notification
+            mUpdateScheduler.cancel();
             // remove the foreground lock (dismisses notification) and don't keep media session active
             stopForeground(true);
             // update media session
             updateMediaSession(mStation, false);
         } else {
             // remove the foreground lock and update notification (make it swipe-able)
-            NotificationHelper.update(this, mStation, mSession);
+            mUpdateScheduler.flush(PlaybackUpdateScheduler.UPDATE_NOTIFICATION);
             // update media session
             updateMediaSession(mStation, true);
         }
 
-        // send local broadcast: playback stopped
-        Intent intent = new Intent();
-        intent.setAction(ACTION_PLAYBACK_STATE_CHANGED);
-        intent.putExtra(EXTRA_STATION, mStation);
-        LocalBroadcastManager.getInstance(this.getApplication()).sendBroadcast(intent);
-        LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_PLAYBACK_STATE_CHANGED -> PLAYBACK_STATE_STOPPED");
+        // publish state: playback stopped
+        publishPlaybackState();
 
         // unregister headphone listener
         unregisterHeadphoneUnplugReceiver();
@@ -731,70 +809,302 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
     }
 
 
-    /* Creates an instance of SimpleExoPlayer */
-    private void createPlayer() {
+    /* Creates an instance of SimpleExoPlayer in active slot */
+    private void createPlayer(int bufferProfile) {
 
         if (mPlayer != null) {
+            detachPlayerListeners(mPlayer);
             releasePlayer();
         }
 
+        // create the player
+        mPlayer = buildPlayer(bufferProfile);
+        mPlayerBufferProfile = bufferProfile;
+
+        // start listening for player events
+        attachPlayerListeners(mPlayer);
+    }
+
+
+    /* Builds an instance of SimpleExoPlayer for given buffer profile */
+    private SimpleExoPlayer buildPlayer(int bufferProfile) {
         // create default TrackSelector
         TrackSelector trackSelector = new DefaultTrackSelector();
 
-        // create default LoadControl - increase buffer size
-        LoadControl loadControl = createDefaultLoadControl(10);
+        // create LoadControl for given buffer profile
+        LoadControl loadControl = createLoadControl(bufferProfile);
 
         // create the player
-        mPlayer = ExoPlayerFactory.newSimpleInstance(this, new DefaultRenderersFactory(getApplicationContext()), trackSelector, loadControl);
+        return ExoPlayerFactory.newSimpleInstance(this, new DefaultRenderersFactory(getApplicationContext()), trackSelector, loadControl);
+    }
+
+
+    /* Routes events of given player to this service */
+    private void attachPlayerListeners(SimpleExoPlayer player) {
+        // start listening for state changes and errors
+        player.addListener(this);
 
         // start listening for audio session id
-        mPlayer.addAnalyticsListener(this);
+        player.addAnalyticsListener(this);
 
         // start listening for stream metadata
-        mPlayer.addMetadataOutput(this);
+        player.addMetadataOutput(this);
+    }
+
+
+    /* Stops routing events of given player to this service */
+    private void detachPlayerListeners(SimpleExoPlayer player) {
+        player.removeListener(this);
+        player.removeAnalyticsListener(this);
+        player.removeMetadataOutput(this);
+    }
+
+
+    /* Swaps active slot and background slot - previous player keeps playing, if requested */
+    private void swapPlayers(boolean keepPreviousPlaying) {
+        // a previous station that is still fading out is not needed any more
+        finishCrossfade();
+
+        SimpleExoPlayer previousPlayer = mPlayer;
+        int previousBufferProfile = mPlayerBufferProfile;
+        HandoffDataSource.Factory previousDataSourceFactory = mDataSourceFactory;
+        detachPlayerListeners(previousPlayer);
+
+        // background slot becomes active slot
+        mPlayer = mStandbyPlayer;
+        mPlayerBufferProfile = mStandbyBufferProfile;
+        mDataSourceFactory = mStandbyDataSourceFactory;
+        if (mPlayer != null) {
+            mPlayer.removeListener(mStandbyPlayerListener);
+            attachPlayerListeners(mPlayer);
+        }
+
+        // active slot becomes background slot
+        mStandbyPlayer = previousPlayer;
+        mStandbyBufferProfile = previousBufferProfile;
+        mStandbyDataSourceFactory = previousDataSourceFactory;
+        mStandbyStation = null;
+        mStandbyPlayer.addListener(mStandbyPlayerListener);
+        if (!keepPreviousPlaying) {
+            resetStandbyPlayer();
+        }
+    }
+
+
+    /* Pre-loads given station in background slot - player buffers silently until it is swapped in */
+    private void preloadStandbyPlayer(Station station) {
+        if (isStandbyPlayerOutgoing() || (mStandbyStation != null && mStandbyStation.streamEquals(station))) {
+            // background slot is busy - or station is already pre-loaded
+            return;
+        }
+        resetStandbyPlayer();
+
+        // LoadControl is fixed for the lifetime of a player - recreate player, if station needs a different buffer profile
+        if (mStandbyPlayer == null || mStandbyBufferProfile != station.getBufferProfile()) {
+            if (mStandbyPlayer != null) {
+                mStandbyPlayer.release();
+            }
+            mStandbyPlayer = buildPlayer(station.getBufferProfile());
+            mStandbyBufferProfile = station.getBufferProfile();
+            mStandbyPlayer.addListener(mStandbyPlayerListener);
+        }
+
+        LogHelper.v(LOG_TAG, "Pre-loading station in background slot. Station name:" + station.getStationName());
+        mStandbyStation = station;
+        InitializePlayerHelper initializePlayerHelper = new InitializePlayerHelper(station, true);
+        initializePlayerHelper.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+
+    /* Pre-loads the station after the current one - in car mode skipping is the main way to switch stations */
+    private void preloadNextStation() {
+        if (mStation == null || mStationListProvider.isEmpty() || !isCarUiMode()) {
+            return;
+        }
+        MediaMetadataCompat nextStationMetadata = mStationListProvider.getStationAfter(mStation.getStationId());
+        if (nextStationMetadata == null) {
+            nextStationMetadata = mStationListProvider.getFirstStation();
+        }
+        if (nextStationMetadata != null) {
+            Station nextStation = new Station(nextStationMetadata);
+            if (nextStation.getStreamUri() != null && !nextStation.streamEquals(mStation)) {
+                preloadStandbyPlayer(nextStation);
+            }
+        }
+    }
+
+
+    /* Checks if player in background slot is still playing the previous station */
+    private boolean isStandbyPlayerOutgoing() {
+        return mStandbyPlayer != null && mStandbyStation == null && mStandbyPlayer.getPlayWhenReady();
+    }
+
+
+    /* Starts fading from previous station in background slot to new station - once per switch */
+    private void startCrossfade() {
+        if (mCrossfadeStartTime == 0L) {
+            mCrossfadeStartTime = SystemClock.elapsedRealtime();
+            mCrossfadeHandler.post(mCrossfadeRunnable);
+        }
+    }
+
+
+    /* Raises volume of new station and lowers volume of previous station step by step */
+    private final Runnable mCrossfadeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mPlayer == null || !isStandbyPlayerOutgoing()) {
+                return;
+            }
+            float progress = Math.min(1f, (SystemClock.elapsedRealtime() - mCrossfadeStartTime) / (float) CROSSFADE_DURATION);
+            mPlayer.setVolume(progress);
+            mStandbyPlayer.setVolume(1f - progress);
+            if (progress < 1f) {
+                mCrossfadeHandler.postDelayed(this, CROSSFADE_STEP);
+            } else {
+                // background slot is free again
+                finishCrossfade();
+                preloadNextStation();
+            }
+        }
+    };
+
+
+    /* Ends crossfade - previous station in background slot stops, new station plays at full volume */
+    private void finishCrossfade() {
+        if (isStandbyPlayerOutgoing()) {
+            resetStandbyPlayer();
+            mPlayer.setVolume(1f);
+        }
+    }
+
+
+    /* Stops player in background slot - drops pre-loaded station or previous station that is fading out */
+    private void resetStandbyPlayer() {
+        mCrossfadeHandler.removeCallbacks(mCrossfadeRunnable);
+        mCrossfadeStartTime = 0L;
+        if (mStandbyPlayer != null) {
+            mStandbyPlayer.setPlayWhenReady(false);
+            mStandbyPlayer.stop();
+            mStandbyPlayer.setVolume(1f);
+        }
+        if (mStandbyDataSourceFactory != null) {
+            mStandbyDataSourceFactory.releaseConnection();
+        }
+        mStandbyStation = null;
+    }
+
+
+    /* Releases player in background slot */
+    private void releaseStandbyPlayer() {
+        resetStandbyPlayer();
+        if (mStandbyPlayer != null) {
+            mStandbyPlayer.removeListener(mStandbyPlayerListener);
+            mStandbyPlayer.release();
+            mStandbyPlayer = null;
+        }
+        mStandbyDataSourceFactory = null;
     }
 
 
-    /* Creates a LoadControl - increase buffer size by given factor */
-    private DefaultLoadControl createDefaultLoadControl(int factor) {
+    /* Creates listener for player in background slot - its events must not reach the current station */
+    private Player.EventListener createStandbyPlayerListener() {
+        return new Player.EventListener() {
+            @Override
+            public void onPlayerError(ExoPlaybackException error) {
+                LogHelper.w(LOG_TAG, "Player in background slot failed: " + error.toString());
+                // previous station stops early - pre-loaded station gets loaded again when it is selected
+                finishCrossfade();
+                resetStandbyPlayer();
+            }
+        };
+    }
+
+
+    /* Creates a LoadControl for given buffer profile */
+    private DefaultLoadControl createLoadControl(int bufferProfile) {
         Builder builder = new Builder();
-        builder.setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE * factor));
+        switch (bufferProfile) {
+            case BUFFER_PROFILE_LOW_LATENCY:
+                // small buffer - playback starts as soon as half a second of audio has arrived
+                builder.setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE * 2));
+                builder.setBufferDurationsMs(2000, 8000, 500, 1500);
+                break;
+            case BUFFER_PROFILE_FLAKY_NETWORK:
+                // deep buffer - rides out longer dropouts, waits for more audio after running dry
+                builder.setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE * 16));
+                builder.setBufferDurationsMs(30000, 120000, 5000, 15000);
+                builder.setPrioritizeTimeOverSizeThresholds(true);
+                break;
+            default:
+                // balanced - default buffer durations with larger allocation segments
+                builder.setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE * 10));
+                break;
+        }
+        LogHelper.v(LOG_TAG, "Creating LoadControl for buffer profile: " + BUFFER_PROFILE_KEYS[bufferProfile]);
         return builder.createDefaultLoadControl();
     }
 
 
-    /* Add a media source to player */
-    private void preparePlayer(int connectionType) {
+    /* Add a media source of given station to given player - returns factory that holds the probe connection */
+    private HandoffDataSource.Factory preparePlayer(SimpleExoPlayer player, Station station, int connectionType, HttpURLConnection probeConnection, InputStream probeInputStream) {
         // create DataSource.Factory - produces DataSource instances through which media data is loaded
-        DataSource.Factory dataSourceFactory;
-        dataSourceFactory = new DefaultDataSourceFactory(this, Util.getUserAgent(this, mUserAgent));
+        // the handoff factory lets the player read from the connection that was opened to probe (or warm up) the stream
+        HandoffDataSource.Factory handoffDataSourceFactory = new HandoffDataSource.Factory(new DefaultDataSourceFactory(this, Util.getUserAgent(this, mUserAgent)));
+        if (probeConnection != null) {
+            handoffDataSourceFactory.parkConnection(station.getStreamUri(), probeConnection, probeInputStream);
+        }
+        DataSource.Factory dataSourceFactory = handoffDataSourceFactory;
 
         // create MediaSource
         MediaSource mediaSource;
         if (connectionType == CONNECTION_TYPE_HLS) {
-            // TODO HLS does not work reliable
-            Toast.makeText(this, this.getString(R.string.toastmessage_stream_may_not_work), Toast.LENGTH_LONG).show();
-            mediaSource = new HlsMediaSource.Factory(dataSourceFactory).createMediaSource(mStation.getStreamUri());
+            mediaSource = new HlsMediaSource.Factory(dataSourceFactory).createMediaSource(station.getStreamUri());
         } else {
-            mediaSource = new ProgressiveMediaSource.Factory(dataSourceFactory).setContinueLoadingCheckIntervalBytes(32).createMediaSource(mStation.getStreamUri());
+            mediaSource = new ProgressiveMediaSource.Factory(dataSourceFactory).setContinueLoadingCheckIntervalBytes(32).createMediaSource(station.getStreamUri());
         }
 
+        // set content type
+        player.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(C.USAGE_MEDIA)
+                .setContentType(C.CONTENT_TYPE_MUSIC)
+                .build()
+        );
+
         // prepare player with source.
-        mPlayer.prepare(mediaSource);
+        player.prepare(mediaSource);
+        return handoffDataSourceFactory;
     }
 
 
     /* Releases player */
     private void releasePlayer() {
+        releaseProbeConnection();
         mPlayer.release();
         mPlayer = null;
     }
 
 
+    /* Stamps given stage of the current playback start */
+    private void markStartupStage(int stage) {
+        if (mStation != null && mStation.getStreamUri() != null) {
+            StartupTimer.mark(mStation.getStreamUri().toString(), stage);
+        }
+    }
+
+
+    /* Disconnects probe connection - if the player has not adopted it */
+    private void releaseProbeConnection() {
+        if (mDataSourceFactory != null) {
+            mDataSourceFactory.releaseConnection();
+        }
+    }
+
+
     /* Set up the media mPlayer */
     private void initializePlayer() {
         if (!mPlayerInitLock) {
-            InitializePlayerHelper initializePlayerHelper = new InitializePlayerHelper();
+            InitializePlayerHelper initializePlayerHelper = new InitializePlayerHelper(mStation, false);
             initializePlayerHelper.execute();
         }
     }
@@ -830,6 +1140,20 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
     }
 
 
+    /* Creates listener that applies changes in collection folder to list of browsable stations */
+    private CollectionWatcher.Listener createCollectionWatcherListener() {
+        return new CollectionWatcher.Listener() {
+            @Override
+            public void onCollectionChanged(CollectionWatcher.Delta delta) {
+                if (mStationListProvider.applyCollectionDelta(delta)) {
+                    // let connected media browsers (e.g. Android Auto) reload the list
+                    notifyChildrenChanged(MEDIA_ID_ROOT);
+                }
+            }
+        };
+    }
+
+
     /* Creates media session */
     private MediaSessionCompat createMediaSession(Context context) {
         // create a media session
@@ -871,11 +1195,8 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
 
     /* Creates the metadata needed for MediaSession */
     private MediaMetadataCompat getSessionMetadata(Context context, Station station) {
-        Bitmap stationImage = null;
-        // try to get station image
-        if (station != null && station.getStationImageFile() != null && station.getStationImageFile().exists()) {
-            stationImage = BitmapFactory.decodeFile(station.getStationImageFile().toString());
-        }
+        // get station image - decoded once per version of the image file
+        Bitmap stationImage = PlaybackArtwork.getSessionArtwork(station);
         // use name of app as album title
         String albumTitle = context.getResources().getString(R.string.app_name);
 
@@ -942,18 +1263,72 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
         }
         mStationMetadataReceived = true;
 
-        // send local broadcast
-        Intent i = new Intent();
-        i.setAction(ACTION_METADATA_CHANGED);
-        i.putExtra(EXTRA_STATION, mStation);
-        LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(i);
-        LogHelper.v(LOG_TAG, "LocalBroadcast: ACTION_METADATA_CHANGED -> EXTRA_STATION");
+        // publish to player sheet, notification and media session
+        publishNowPlaying();
+    }
+
+
+    /* Finds full station for given reference - in list of collection, or in list of browsable stations */
+    private Station resolveStation(StationReference stationReference) {
+        // stations in a list are never changed - player service works on its own copy
+        Station station = stationReference.resolve(StateStore.STATION_LIST.getValue());
+        if (station != null) {
+            return new Station(station);
+        }
+        Uri streamUri = stationReference.getStreamUri();
+        for (MediaMetadataCompat stationMetadata : mStationListProvider.getAllStations()) {
+            if (streamUri != null && streamUri.toString().equals(stationMetadata.getString(MediaMetadataCompat.METADATA_KEY_MEDIA_URI))) {
+                return new Station(stationMetadata);
+            }
+        }
+        // collection has not been loaded - play what the reference knows about the station
+        LogHelper.w(LOG_TAG, "Unable to find full station for " + stationReference.toString());
+        return stationReference.toStation();
+    }
 
-        // update media session metadata
-        mSession.setMetadata(getSessionMetadata(getApplicationContext(), mStation));
 
-        // update notification
-        NotificationHelper.update(PlayerService.this, mStation, mSession);
+    /* Publishes playback state of current station */
+    private void publishPlaybackState() {
+        PlaybackState playbackState = new PlaybackState(mStation);
+        StateStore.PLAYBACK_STATE.publish(playbackState);
+        LogHelper.v(LOG_TAG, "Published " + playbackState.toString());
+    }
+
+
+    /* Publishes stream title and format of current station - repeated titles are dropped */
+    private void publishNowPlaying() {
+        NowPlaying previousNowPlaying = StateStore.NOW_PLAYING.getValue();
+        NowPlaying nowPlaying = new NowPlaying(mStation);
+        if (nowPlaying.equals(previousNowPlaying)) {
+            return;
+        }
+        StateStore.NOW_PLAYING.publish(nowPlaying);
+        LogHelper.v(LOG_TAG, "Published " + nowPlaying.toString());
+        boolean metadataChanged = nowPlaying.hasOtherMetadata(previousNowPlaying);
+
+        if (metadataChanged) {
+            // update media session metadata and notification - merged with other pending updates
+            mUpdateScheduler.schedule(PlaybackUpdateScheduler.UPDATE_SESSION_METADATA | PlaybackUpdateScheduler.UPDATE_NOTIFICATION);
+        }
+    }
+
+
+    /* Creates target that applies scheduled updates of notification and media session */
+    private PlaybackUpdateScheduler.UpdateTarget createUpdateTarget() {
+        return new PlaybackUpdateScheduler.UpdateTarget() {
+            @Override
+            public void applyUpdates(int updates) {
+                if (mStation == null || mSession == null) {
+                    return;
+                }
+                if ((updates & PlaybackUpdateScheduler.UPDATE_SESSION_METADATA) != 0) {
+                    mSession.setMetadata(getSessionMetadata(getApplicationContext(), mStation));
+                }
+                if ((updates & PlaybackUpdateScheduler.UPDATE_NOTIFICATION) != 0) {
+                    NotificationHelper.update(PlayerService.this, mStation, mSession);
+                }
+            }
+        };
     }
 
 
@@ -1107,65 +1482,161 @@ public final class PlayerService extends MediaBrowserServiceCompat implements Tr
      */
     private class InitializePlayerHelper extends AsyncTask<Void, Void, Integer> {
 
+        /* Main class variables */
+        private final Station mTargetStation;
+        private final boolean mStandby;
+        private HttpURLConnection mProbeConnection;
+        private InputStream mProbeInputStream;
+
+        /* Constructor - standby initializes the player in background slot */
+        private InitializePlayerHelper(Station targetStation, boolean standby) {
+            mTargetStation = targetStation;
+            mStandby = standby;
+        }
+
         @Override
         protected Integer doInBackground(Void... voids) {
-            mPlayerInitLock = true;
-
-            String contentType = "";
+            if (!mStandby) {
+                mPlayerInitLock = true;
+            }
 
             try {
-                URLConnection connection = new URL(mStation.getStreamUri().toString()).openConnection();
-                connection.connect();
-                contentType = connection.getContentType();
-                if (contentType == null) {
-                    LogHelper.e(LOG_TAG, "Connection Error. Connection is NULL");
-                    return CONNECTION_TYPE_ERROR;
+                String streamUrl = mTargetStation.getStreamUri().toString();
+                // pre-loading is not part of a playback start
+                StartupTimer.Session startupSession = mStandby ? null : StartupTimer.getSession(streamUrl);
+                if (startupSession != null) {
+                    startupSession.mark(StartupTimer.STAGE_PROBE_START);
                 }
-
-                LogHelper.v(LOG_TAG, "MIME type of stream: " + contentType);
-                // strip encoding part after semicolon if necessary
-                if (contentType.contains(";")) {
-                    contentType = contentType.substring(0, contentType.indexOf(";"));
+                StreamProbeCache.ProbeResult probeResult = null;
+                StreamPrewarmer.WarmConnection warmConnection = StreamPrewarmer.take(streamUrl);
+                if (warmConnection != null) {
+                    // station was warmed up on selection - continue reading from warmed connection and its buffer
+                    mProbeConnection = warmConnection.getConnection();
+                    mProbeInputStream = warmConnection.getInputStream();
+                    probeResult = StreamProbeCache.get(streamUrl);
+                    if (probeResult == null) {
+                        releaseConnection();
+                    }
                 }
-
-                if (Arrays.asList(CONTENT_TYPES_HLS).contains(contentType) || Arrays.asList(CONTENT_TYPES_M3U).contains(contentType) ) {
-                    LogHelper.v(LOG_TAG, "HTTP Live Streaming detected.");
-                    return CONNECTION_TYPE_HLS;
-                } else if (Arrays.asList(CONTENT_TYPES_MPEG).contains(contentType) || Arrays.asList(CONTENT_TYPES_AAC).contains(contentType)  || Arrays.asList(CONTENT_TYPES_OGG).contains(contentType) ) {
-                    LogHelper.v(LOG_TAG, "Other Streaming protocol detected (MPEG, AAC, OGG).");
-                    return CONNECTION_TYPE_OTHER;
-                } else {
-                    LogHelper.e(LOG_TAG, "Connection Error. Connection is " + contentType);
-                    return CONNECTION_TYPE_ERROR;
+                boolean cachedResult = false;
+                if (probeResult == null) {
+                    // use cached probe result if available - cached results get revalidated in background
+                    probeResult = StreamProbeCache.getAndRevalidate(streamUrl);
+                    cachedResult = probeResult != null;
                 }
+                if (probeResult == null) {
+                    probeResult = probeStream(streamUrl, startupSession);
+                }
+                int connectionType = getConnectionType(probeResult.getContentType());
+                if (connectionType == CONNECTION_TYPE_ERROR && cachedResult) {
+                    // cached result may be outdated - e.g. the login page of a captive portal - ask the server once more
+                    LogHelper.w(LOG_TAG, "Cached content type " + probeResult.getContentType() + " is not playable. Probing stream again.");
+                    StreamProbeCache.invalidate(streamUrl);
+                    probeResult = probeStream(streamUrl, startupSession);
+                    connectionType = getConnectionType(probeResult.getContentType());
+                }
+                if (startupSession != null) {
+                    startupSession.mark(StartupTimer.STAGE_PROBE_END);
+                }
+                if (connectionType == CONNECTION_TYPE_ERROR) {
+                    releaseConnection();
+                }
+                return connectionType;
             } catch (IOException e) {
                 LogHelper.e(LOG_TAG, "Connection Error. Details: " + e);
+                releaseConnection();
                 return CONNECTION_TYPE_ERROR;
             }
         }
 
+        /* Probes stream - keeps connection open, the player can continue reading from it */
+        private StreamProbeCache.ProbeResult probeStream(String streamUrl, StartupTimer.Session startupSession) throws IOException {
+            mProbeConnection = StreamProbeCache.openConnection(streamUrl, startupSession);
+            StreamProbeCache.ProbeResult probeResult = StreamProbeCache.store(streamUrl, mProbeConnection);
+            if (mProbeConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                releaseConnection();
+            }
+            return probeResult;
+        }
+
+        /* Determines how to play stream of given content type */
+        private int getConnectionType(String contentType) {
+            if (contentType == null) {
+                LogHelper.e(LOG_TAG, "Connection Error. Connection is NULL");
+                return CONNECTION_TYPE_ERROR;
+            }
+
+            LogHelper.v(LOG_TAG, "MIME type of stream: " + contentType);
+
+            if (Arrays.asList(CONTENT_TYPES_HLS).contains(contentType) || Arrays.asList(CONTENT_TYPES_M3U).contains(contentType) ) {
+                LogHelper.v(LOG_TAG, "HTTP Live Streaming detected.");
+                return CONNECTION_TYPE_HLS;
+            } else if (Arrays.asList(CONTENT_TYPES_MPEG).contains(contentType) || Arrays.asList(CONTENT_TYPES_AAC).contains(contentType)  || Arrays.asList(CONTENT_TYPES_OGG).contains(contentType) ) {
+                LogHelper.v(LOG_TAG, "Other Streaming protocol detected (MPEG, AAC, OGG).");
+                return CONNECTION_TYPE_OTHER;
+            } else {
+                LogHelper.e(LOG_TAG, "Connection Error. Connection is " + contentType);
+                return CONNECTION_TYPE_ERROR;
+            }
+        }
+
+        /* Disconnects probe connection */
+        private void releaseConnection() {
+            if (mProbeConnection != null) {
+                mProbeConnection.disconnect();
+                mProbeConnection = null;
+                mProbeInputStream = null;
+            }
+        }
+
         @Override
         protected void onPostExecute(Integer connectionType) {
-            if (connectionType == CONNECTION_TYPE_ERROR) {
+            if (mStandby) {
+                if (mStandbyStation != mTargetStation) {
+                    // pre-loaded station has been dropped or replaced in the meantime
+                    LogHelper.v(LOG_TAG, "Pre-loading cancelled. Station name:" + mTargetStation.getStationName());
+                } else if (connectionType == CONNECTION_TYPE_ERROR) {
+                    // no toast - user did not ask for this station (yet)
+                    mStandbyStation = null;
+                } else {
+                    // prepare player in background slot - hands over probe connection
+                    mStandbyDataSourceFactory = preparePlayer(mStandbyPlayer, mTargetStation, connectionType, mProbeConnection, mProbeInputStream);
+                    mProbeConnection = null;
+                    mProbeInputStream = null;
+                }
+            } else if (mStation == null || !mTargetStation.streamEquals(mStation)) {
+                // station has been switched while probing - probe result and connection belong to another station
+                LogHelper.v(LOG_TAG, "Station changed during initialization. Discarding probe of " + mTargetStation.getStationName());
+                releaseConnection();
+                mPlayerInitLock = false;
+                if (mStation != null && mStation.getPlaybackState() != PLAYBACK_STATE_STOPPED) {
+                    // initialize player for the station that is current now
+                    initializePlayer();
+                }
+                return;
+            } else if (connectionType == CONNECTION_TYPE_ERROR) {
                 Toast.makeText(PlayerService.this, getString(R.string.toastalert_unable_to_connect), Toast.LENGTH_LONG).show();
                 stopPlayback(false);
             } else if (mStation.getPlaybackState() != PLAYBACK_STATE_STOPPED) {
-                // prepare player
-                preparePlayer(connectionType);
-
-                // add listener
-                mPlayer.addListener(PlayerService.this);
-
-                // set content type
-                mPlayer.setAudioAttributes(new AudioAttributes.Builder()
-                        .setUsage(C.USAGE_MEDIA)
-                        .setContentType(C.CONTENT_TYPE_MUSIC)
-                        .build()
-                );
+                if (connectionType == CONNECTION_TYPE_HLS) {
+                    // TODO HLS does not work reliable
+                    Toast.makeText(PlayerService.this, getString(R.string.toastmessage_stream_may_not_work), Toast.LENGTH_LONG).show();
+                }
+
+                // prepare player - hands over probe connection
+                releaseProbeConnection();
+                mDataSourceFactory = preparePlayer(mPlayer, mStation, connectionType, mProbeConnection, mProbeInputStream);
+                mProbeConnection = null;
+                mProbeInputStream = null;
             }
 
+            // playback was stopped in the meantime
+            releaseConnection();
+
             // release init lock
-            mPlayerInitLock = false;
+            if (!mStandby) {
+                mPlayerInitLock = false;
+            }
 
         }
 
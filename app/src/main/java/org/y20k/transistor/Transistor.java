@@ -15,8 +15,13 @@ package org.y20k.transistor;
 
 import android.app.Application;
 
+import org.y20k.transistor.helpers.BitmapPool;
+import org.y20k.transistor.helpers.ImageCache;
+import org.y20k.transistor.helpers.ImageColorCache;
 import org.y20k.transistor.helpers.LogHelper;
 import org.y20k.transistor.helpers.NightModeHelper;
+import org.y20k.transistor.helpers.StationIconResolver;
+import org.y20k.transistor.helpers.StreamProbeCache;
 
 
 /**
@@ -35,6 +40,15 @@ public class Transistor extends Application {
         // set Day / Night theme state
         NightModeHelper.restoreSavedState(this);
 
+        // load cached stream probe results
+        StreamProbeCache.initialize(this);
+
+        // load cached colors of station images
+        ImageColorCache.initialize(this);
+
+        // set up cache of resolved station icons
+        StationIconResolver.initialize(this);
+
 // todo remove
 //        if (Build.VERSION.SDK_INT >= 28) {
 //            // Android P might introduce a system wide theme option - in that case: follow system (28 = Build.VERSION_CODES.P)
@@ -47,6 +61,15 @@ public class Transistor extends Application {
     }
 
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // release rendered station images
+        ImageCache.trimMemory(level);
+        BitmapPool.trimMemory(level);
+    }
+
+
     @Override
     public void onTerminate() {
         super.onTerminate();
@@ -15,12 +15,9 @@
 package org.y20k.transistor.collection;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.graphics.Bitmap;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,22 +30,29 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProviders;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import org.y20k.transistor.R;
+import org.y20k.transistor.core.PlaybackState;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
+import org.y20k.transistor.helpers.ArtworkLoader;
 import org.y20k.transistor.helpers.DialogAdd;
-import org.y20k.transistor.helpers.ImageHelper;
+import org.y20k.transistor.helpers.ImageCache;
 import org.y20k.transistor.helpers.LogHelper;
+import org.y20k.transistor.helpers.StartupTimer;
+import org.y20k.transistor.helpers.StateStore;
 import org.y20k.transistor.helpers.StationListHelper;
 import org.y20k.transistor.helpers.StorageHelper;
+import org.y20k.transistor.helpers.StreamPrewarmer;
 import org.y20k.transistor.helpers.TransistorKeys;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -66,17 +70,29 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
     private static final String LOG_TAG = CollectionAdapter.class.getSimpleName();
 
 
+    /* Keys */
+    private static final int MAX_MOVE_DETECTION_SIZE = 250;
+
+
     /* Main class variables */
+    private static final ThreadPoolExecutor mDiffExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
     private final Activity mActivity;
     private final CollectionViewModel mCollectionViewModel;
-    private BroadcastReceiver mPlaybackStateChangedReceiver;
-    private BroadcastReceiver mMetadataChangedReceiver;
+    private StateStore.Observer<PlaybackState> mPlaybackStateObserver;
     private CollectionAdapterListener mCollectionAdapterListener;
-    private ArrayList<Station> mStationList;
+    private StationList mStationList;
+    private DiffStationListTask mDiffStationListTask;
+    private int mMaxScheduledGeneration;
     private int mStationIdSelected;
     private final String mCurrentStationUrl;
 
 
+    /* Lets idle diff thread time out */
+    static {
+        mDiffExecutor.allowCoreThreadTimeOut(true);
+    }
+
+
     /* Constructor */
     public CollectionAdapter(Activity activity, String currentStationUrl) {
         // set initial values
@@ -85,18 +101,21 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
         mCurrentStationUrl = currentStationUrl;
 
         // create empty station list
-        mStationList = new ArrayList<Station>();
+        mStationList = new StationList();
+        mDiffStationListTask = null;
+        mMaxScheduledGeneration = 0;
 
         // initialize listener
         mCollectionAdapterListener = null;
 
-        // initialize BroadcastReceiver that listens for playback changes
-        initializeBroadcastReceivers();
-
         // observe changes in LiveData
         mCollectionViewModel = ViewModelProviders.of((AppCompatActivity)mActivity).get(CollectionViewModel.class);
         mCollectionViewModel.getStationList().observe((LifecycleOwner) mActivity, createStationListObserver());
 
+        // observe playback state of player service
+        mPlaybackStateObserver = createPlaybackStateObserver();
+        StateStore.PLAYBACK_STATE.subscribe(mPlaybackStateObserver);
+
     }
 
 
@@ -106,6 +125,16 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
     }
 
 
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        // image for recycled view is not needed any more
+        if (holder instanceof StationViewHolder) {
+            ArtworkLoader.cancel(((StationViewHolder) holder).getStationImageView());
+        }
+    }
+
+
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(final ViewGroup parent, int viewType) {
         switch (viewType) {
@@ -150,7 +179,7 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
             StationViewHolder stationViewHolder = (StationViewHolder) holder;
 
             // set station image
-            stationViewHolder.getStationImageView().setImageBitmap(createStationImageBitmap(station));
+            loadStationImage(stationViewHolder.getStationImageView(), station);
             // round station image corners, if possible
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                 stationViewHolder.getStationImageView().setClipToOutline(true);
@@ -188,8 +217,19 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
     /* Handles tap on station */
     private void handleTap(int adapterPosition, boolean isLongPress) {
 
+        // long press starts playback - start measuring time to first audio
+        Station station = mStationList.get(adapterPosition);
+        if (isLongPress && station.getPlaybackState() == PLAYBACK_STATE_STOPPED) {
+            StartupTimer.tap(mActivity, station);
+        }
+
+        // short tap selects - warm up station and its neighbors, playback is likely to follow
+        if (!isLongPress) {
+            StreamPrewarmer.prewarm(mActivity, mStationList, adapterPosition);
+        }
+
         // notify and update player sheet - and start playback if long press
-        mCollectionAdapterListener.itemSelected(mStationList.get(adapterPosition), isLongPress);
+        mCollectionAdapterListener.itemSelected(station, isLongPress);
         // visually deselect previous station
         notifyItemChanged(mStationIdSelected,HOLDER_UPDATE_SELECTION_STATE);
         // visually select this station
@@ -232,7 +272,7 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
                     case HOLDER_UPDATE_IMAGE:
                         // set station image
                         LogHelper.v(LOG_TAG, "List of station: Partial view update -> station image changed");
-                        stationViewHolder.getStationImageView().setImageBitmap(createStationImageBitmap(station));
+                        loadStationImage(stationViewHolder.getStationImageView(), station);
                         // round station image corners, if possible
                         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                             stationViewHolder.getStationImageView().setClipToOutline(true);
@@ -271,10 +311,9 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
     }
 
 
-    /* Create bitmap version of station image */
-    private Bitmap createStationImageBitmap(Station station) {
-        ImageHelper imageHelper = new ImageHelper(station, mActivity);
-        return imageHelper.createSquareImage(192, false);
+    /* Puts station image into given view - rendered once per image version in background, rebinds are served from memory */
+    private void loadStationImage(ImageView imageView, Station station) {
+        ArtworkLoader.load(mActivity, station, 192, imageView);
     }
 
 
@@ -294,72 +333,73 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
 
     /* Setter for image file within station object with given ID */
     public void setNewImageFile(int stationId, File stationImageFile) {
-        mStationList.get(stationId).setStationImageFile(stationImageFile);
+        // stations in a list are never changed - put changed copy into new version of list
+        Station newStation = new Station(mStationList.get(stationId));
+        newStation.setStationImageFile(stationImageFile);
+        ImageCache.evict(newStation.getStationImageFile());
+        // list shown may lag behind while a diff is calculated - change the latest list
+        StationList latestStationList = getLatestStationList();
+        int latestStationId = StationListHelper.findStationId(latestStationList, newStation.getStreamUri());
+        if (latestStationId != -1) {
+            mCollectionViewModel.getStationList().setValue(latestStationList.with(latestStationId, newStation));
+        }
     }
 
 
-    /* Getter for list of stations */
-    public ArrayList<Station> getStationList() {
+    /* Getter for list of stations - the list currently shown */
+    public StationList getStationList() {
         return mStationList;
     }
 
 
-    /* Initializes and registers broadcast receivers */
-    private void initializeBroadcastReceivers() {
+    /* Returns newest list of stations - may be ahead of the list shown, while a diff is calculated */
+    private StationList getLatestStationList() {
+        StationList latestStationList = mCollectionViewModel.getStationList().getValue();
+        return latestStationList != null ? latestStationList : mStationList;
+    }
 
-        // RECEIVER: state of playback has changed
-        mPlaybackStateChangedReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (intent.hasExtra(EXTRA_STATION)) {
-                    handlePlaybackStateChange(intent);
-                } else if (intent.hasExtra(EXTRA_ERROR_OCCURRED) && intent.getBooleanExtra(EXTRA_ERROR_OCCURRED, false)) {
-                    handlePlaybackStateError(intent);
-                }
-            }
-        };
-        IntentFilter playbackStateChangedIntentFilter = new IntentFilter(ACTION_PLAYBACK_STATE_CHANGED);
-        LocalBroadcastManager.getInstance(mActivity).registerReceiver(mPlaybackStateChangedReceiver, playbackStateChangedIntentFilter);
 
-        // RECEIVER: station metadata has changed
-        mMetadataChangedReceiver = new BroadcastReceiver() {
+    /* Stops observing playback state of player service */
+    public void unregisterObservers() {
+        StateStore.PLAYBACK_STATE.unsubscribe(mPlaybackStateObserver);
+        LogHelper.v(LOG_TAG, "Unregistered observers in adapter");
+    }
+
+
+    /* Creates an observer for playback state of player service - stream title and format are observed by the player sheet */
+    private StateStore.Observer<PlaybackState> createPlaybackStateObserver() {
+        return new StateStore.Observer<PlaybackState>() {
             @Override
-            public void onReceive(Context context, Intent intent) {
-                if (intent.hasExtra(EXTRA_STATION)) {
-                    handleMetadataChange(intent);
+            public void onChanged(PlaybackState playbackState) {
+                if (playbackState.isErrorOccurred()) {
+                    handlePlaybackStateError();
+                } else {
+                    handlePlaybackStateChange(playbackState);
                 }
             }
         };
-        IntentFilter metadataChangedIntentFilter = new IntentFilter(ACTION_METADATA_CHANGED);
-        LocalBroadcastManager.getInstance(mActivity).registerReceiver(mMetadataChangedReceiver, metadataChangedIntentFilter);
     }
 
 
-    /* Unregisters broadcast receivers */
-    public void unregisterBroadcastReceivers(Context context) {
-        LocalBroadcastManager.getInstance(context).unregisterReceiver(mPlaybackStateChangedReceiver);
-        LocalBroadcastManager.getInstance(context).unregisterReceiver(mMetadataChangedReceiver);
-        LogHelper.v(LOG_TAG, "Unregistered broadcast receivers in adapter");
-    }
+    /* handles changes in playback state */
+    private void handlePlaybackStateChange(PlaybackState playbackState) {
 
+        // create copy of station - and new versions of main list of stations that share all other stations
+        Station newStation = new Station(playbackState.getStation());
+        StationList newStationList = getLatestStationList();
 
-    /* handles changes in metadata */
-    private void handleMetadataChange(Intent intent) {
-        // get new station from intent
-        Station station;
-        if (intent.hasExtra(EXTRA_STATION)) {
-            station = intent.getParcelableExtra(EXTRA_STATION);
-        } else {
-            return;
+        // only one station is active - every other station is stopped
+        for (int i = 0; i < newStationList.size(); i++) {
+            Station station = newStationList.get(i);
+            if (station.getPlaybackState() != PLAYBACK_STATE_STOPPED && (station.getStreamUri() == null || !station.getStreamUri().equals(newStation.getStreamUri()))) {
+                newStationList = StationListHelper.setPlaybackState(newStationList, i, PLAYBACK_STATE_STOPPED);
+            }
         }
 
-        // create copies of station and of main list of stations
-        Station newStation = new Station(station);
-        ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
-
+        // set playback state for new station
         int stationId = StationListHelper.findStationId(newStationList, newStation.getStreamUri());
         if (stationId != -1) {
-            newStationList.set(stationId, newStation);
+            newStationList = newStationList.with(stationId, newStation);
         }
 
         // update liva data station from PlayerService - used in PlayerFragment
@@ -370,77 +410,126 @@ public final class CollectionAdapter extends RecyclerView.Adapter<RecyclerView.V
     }
 
 
-    /* handles changes in playback state */
-    private void handlePlaybackStateChange(Intent intent) {
+    /* Handles a playback state error that can occur when Transistor crashes during playback */
+    private void handlePlaybackStateError() {
+        LogHelper.e(LOG_TAG, "Forcing a reload of station list. Did Transistor crash?");
+        mCollectionViewModel.getStationList().setValue(StationListHelper.loadStationListFromStorage(mActivity));
+    }
 
-        // get new station from intent
-        Station station;
-        if (intent.hasExtra(EXTRA_STATION)) {
-            station = intent.getParcelableExtra(EXTRA_STATION);
-        } else {
-            return;
-        }
 
-        // create copies of station and of main list of stations
-        Station newStation = new Station(station);
-        ArrayList<Station> newStationList = StationListHelper.copyStationList(mStationList);
-
-        // try to set playback state of previous station
-        if (intent.hasExtra(EXTRA_PLAYBACK_STATE_PREVIOUS_STATION)) {
-            String previousStationUrlString = intent.getStringExtra(EXTRA_PLAYBACK_STATE_PREVIOUS_STATION);
-            if (previousStationUrlString != null) {
-                int previousStationId = StationListHelper.findStationId(newStationList, Uri.parse(previousStationUrlString));
-                if (previousStationId != -1) {
-                    newStationList.get(previousStationId).setPlaybackState(PLAYBACK_STATE_STOPPED);
+    /* Creates an observer for collection of stations stored as LiveData */
+    private Observer<StationList> createStationListObserver() {
+        return new Observer<StationList>() {
+            @Override
+            public void onChanged(@Nullable StationList newStationList) {
+                LogHelper.v(LOG_TAG, "Observer for list of stations in CollectionAdapter: list has changed.");
+                if (newStationList != null) {
+                    // list is sorted by view model - differences are calculated in background
+                    scheduleStationListDiff(newStationList);
                 }
             }
+        };
+    }
+
+
+    /* Calculates differences between list shown and given list in background - results of outdated lists are discarded */
+    private void scheduleStationListDiff(StationList newStationList) {
+        // every new list outdates the ones before
+        final int generation = ++mMaxScheduledGeneration;
+        if (mDiffStationListTask != null) {
+            mDiffStationListTask.cancel(false);
+            mDiffStationListTask = null;
         }
 
-        // set playback state for new station
-        int stationId = StationListHelper.findStationId(newStationList, newStation.getStreamUri());
-        if (stationId != -1) {
-            newStationList.set(stationId, newStation);
+        if (newStationList == mStationList) {
+            // nothing changed
+            return;
+        } else if (mStationList.isEmpty() || newStationList.isEmpty()) {
+            // list is filled or emptied - no diff needed
+            int previousSize = mStationList.size();
+            mStationList = newStationList;
+            if (previousSize > 0) {
+                notifyItemRangeRemoved(0, previousSize);
+            }
+            if (newStationList.size() > 0) {
+                notifyItemRangeInserted(0, newStationList.size());
+            }
+            onStationListDispatched();
+            return;
         }
 
-        // update liva data station from PlayerService - used in PlayerFragment
-        mCollectionViewModel.getPlayerServiceStation().setValue(newStation);
+        // finding moves is quadratic - skip it for large lists, moved stations show up as removed and inserted
+        boolean detectMoves = mStationList.size() + newStationList.size() <= MAX_MOVE_DETECTION_SIZE;
+        mDiffStationListTask = new DiffStationListTask(generation, mStationList, newStationList, detectMoves);
+        // own executor - diffs must not wait behind other tasks on the shared serial executor
+        mDiffStationListTask.executeOnExecutor(mDiffExecutor);
+    }
 
-        // update live data station list - used in CollectionAdapter (this)
-        mCollectionViewModel.getStationList().setValue(newStationList);
+
+    /* Applies differences calculated in background - runs on main thread */
+    private void dispatchStationListDiff(int generation, StationList newStationList, DiffUtil.DiffResult diffResult) {
+        if (generation != mMaxScheduledGeneration) {
+            // a newer list has arrived in the meantime
+            return;
+        }
+        mDiffStationListTask = null;
+
+        // update current station list - lists are immutable, no copy needed
+        mStationList = newStationList;
+
+        // inform this adapter about the changes
+        diffResult.dispatchUpdatesTo(CollectionAdapter.this);
+        onStationListDispatched();
     }
 
 
-    /* Handles a playback state error that can occur when Transistor crashes during playback */
-    private void handlePlaybackStateError(Intent intent) {
-        LogHelper.e(LOG_TAG, "Forcing a reload of station list. Did Transistor crash?");
-        mCollectionViewModel.getStationList().setValue(StationListHelper.loadStationListFromStorage(mActivity));
+    /* Jumps to station selected - once, after the first list has been shown */
+    private void onStationListDispatched() {
+        if (mStationIdSelected == -1 && mCurrentStationUrl != null && mCollectionAdapterListener != null) {
+            mStationIdSelected = StationListHelper.findStationId(mStationList, Uri.parse(mCurrentStationUrl));
+            mCollectionAdapterListener.jumpToPosition(mStationIdSelected);
+        }
     }
 
 
-    /* Creates an observer for collection of stations stored as LiveData */
-    private Observer<ArrayList<Station>> createStationListObserver() {
-        return new Observer<ArrayList<Station>>() {
-            @Override
-            public void onChanged(@Nullable ArrayList<Station> newStationList) {
-                LogHelper.v(LOG_TAG, "Observer for list of stations in CollectionAdapter: list has changed.");
-                StationListHelper.sortStationList(newStationList);
-                // calculate differences between new station list and current station list
-                DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new CollectionAdapterDiffUtilCallback(mStationList, newStationList), true);
+    /**
+     * Inner class: AsyncTask that calculates differences between two lists of stations in background
+     */
+    private class DiffStationListTask extends AsyncTask<Void, Void, DiffUtil.DiffResult> {
 
-                // update current station list
-                mStationList = StationListHelper.copyStationList(newStationList);
+        /* Main class variables */
+        private final int mGeneration;
+        private final StationList mOldStationList;
+        private final StationList mNewStationList;
+        private final boolean mDetectMoves;
 
-                // get station id selected (once)
-                if (mStationIdSelected == -1 && mCurrentStationUrl != null) {
-                    mStationIdSelected = StationListHelper.findStationId(mStationList, Uri.parse(mCurrentStationUrl));
-                    mCollectionAdapterListener.jumpToPosition(mStationIdSelected);
-                }
+        /* Constructor */
+        DiffStationListTask(int generation, StationList oldStationList, StationList newStationList, boolean detectMoves) {
+            mGeneration = generation;
+            mOldStationList = oldStationList;
+            mNewStationList = newStationList;
+            mDetectMoves = detectMoves;
+        }
 
-                // inform this adapter about the changes
-                diffResult.dispatchUpdatesTo(CollectionAdapter.this);
+        @Override
+        protected DiffUtil.DiffResult doInBackground(Void... voids) {
+            if (isCancelled()) {
+                return null;
             }
-        };
+            // lists and their stations are never changed - safe to read on this thread
+            return DiffUtil.calculateDiff(new CollectionAdapterDiffUtilCallback(mOldStationList, mNewStationList), mDetectMoves);
+        }
+
+        @Override
+        protected void onPostExecute(DiffUtil.DiffResult diffResult) {
+            if (diffResult != null) {
+                dispatchStationListDiff(mGeneration, mNewStationList, diffResult);
+            }
+        }
     }
+    /**
+     * End of inner class
+     */
 
 
     /**
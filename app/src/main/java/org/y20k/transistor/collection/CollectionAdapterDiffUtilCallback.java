@@ -17,10 +17,9 @@ import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
 
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
 import org.y20k.transistor.helpers.TransistorKeys;
 
-import java.util.ArrayList;
-
 
 /**
  * CollectionAdapterDiffUtilCallback class
@@ -32,11 +31,11 @@ public class CollectionAdapterDiffUtilCallback extends DiffUtil.Callback impleme
 
 
     /* Main class variables */
-    private final ArrayList<Station> mOldStations;
-    private final ArrayList<Station> mNewStations;
+    private final StationList mOldStations;
+    private final StationList mNewStations;
 
     /* Constructor */
-    public CollectionAdapterDiffUtilCallback(ArrayList<Station> oldStations, ArrayList<Station> newStations) {
+    public CollectionAdapterDiffUtilCallback(StationList oldStations, StationList newStations) {
         mOldStations = oldStations;
         mNewStations = newStations;
     }
@@ -59,7 +58,8 @@ public class CollectionAdapterDiffUtilCallback extends DiffUtil.Callback impleme
         // Called by the DiffUtil to decide whether two objects represent the same Item.
         Station oldStation = mOldStations.get(oldItemPosition);
         Station newStation = mNewStations.get(newItemPosition);
-        return oldStation.getStreamUri().equals(newStation.getStreamUri());
+        // stations in a list are never changed - a shared station is the same item with the same contents
+        return oldStation == newStation || oldStation.getStreamUri().equals(newStation.getStreamUri());
     }
 
 
@@ -68,7 +68,9 @@ public class CollectionAdapterDiffUtilCallback extends DiffUtil.Callback impleme
         // Called by the DiffUtil when it wants to check whether two items have the same data. DiffUtil uses this information to detect if the contents of an item has changed.
         Station oldStation = mOldStations.get(oldItemPosition);
         Station newStation = mNewStations.get(newItemPosition);
-        if (oldStation.getStationName().equals(newStation.getStationName()) &&
+        if (oldStation == newStation) {
+            return true;
+        } else if (oldStation.getStationName().equals(newStation.getStationName()) &&
                 oldStation.getPlaybackState() == newStation.getPlaybackState() &&
                 oldStation.getStationImageSize() == newStation.getStationImageSize()) {
             return true;
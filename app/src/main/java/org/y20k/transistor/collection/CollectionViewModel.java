@@ -22,13 +22,15 @@ import android.preference.PreferenceManager;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.MutableLiveData;
 
+import org.y20k.transistor.core.NowPlaying;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
+import org.y20k.transistor.helpers.CollectionWatcher;
 import org.y20k.transistor.helpers.LogHelper;
+import org.y20k.transistor.helpers.StateStore;
 import org.y20k.transistor.helpers.StationListHelper;
 import org.y20k.transistor.helpers.TransistorKeys;
 
-import java.util.ArrayList;
-
 /**
  * CollectionViewModel.class
  */
@@ -39,17 +41,30 @@ public class CollectionViewModel extends AndroidViewModel implements TransistorK
 
 
     /* Main class variables */
-    private final MutableLiveData<ArrayList<Station>> mStationListLiveData;
+    private final MutableLiveData<StationList> mStationListLiveData;
     private final MutableLiveData<Station> mPlayerServiceStationLiveData;
+    private final MutableLiveData<NowPlaying> mNowPlayingLiveData;
     private final MutableLiveData<Boolean> mTwoPaneLiveData;
+    private final CollectionWatcher.Listener mCollectionWatcherListener;
+    private final StateStore.Observer<NowPlaying> mNowPlayingObserver;
 
     /* Constructor */
     public CollectionViewModel(Application application) {
         super(application);
 
         // initialize LiveData
-        mStationListLiveData = new MutableLiveData<ArrayList<Station>>();
+        mStationListLiveData = new MutableLiveData<StationList>() {
+            @Override
+            public void setValue(StationList stationList) {
+                // keep list sorted for all observers - an unchanged order costs one pass and no copy
+                StationList sortedStationList = stationList != null ? StationListHelper.sortStationList(stationList) : null;
+                super.setValue(sortedStationList);
+                // share list with PlayerService - it looks up stations handed over as StationReference
+                StateStore.STATION_LIST.publish(sortedStationList);
+            }
+        };
         mPlayerServiceStationLiveData = new MutableLiveData<Station>();
+        mNowPlayingLiveData = new MutableLiveData<NowPlaying>();
         mTwoPaneLiveData = new MutableLiveData<Boolean>();
 
         // load state from shared preferences and set live data values
@@ -63,12 +78,37 @@ public class CollectionViewModel extends AndroidViewModel implements TransistorK
 
         // load station list and set live data in background -> not used because DiffResult.dispatchUpdatesTo is causing problems in Adapter
         // new LoadCollectionAsyncTask().execute(application);
+
+        // apply changes in collection folder without rescanning it
+        mCollectionWatcherListener = new CollectionWatcher.Listener() {
+            @Override
+            public void onCollectionChanged(CollectionWatcher.Delta delta) {
+                StationList stationList = mStationListLiveData.getValue();
+                if (stationList != null) {
+                    mStationListLiveData.setValue(StationListHelper.applyCollectionDelta(stationList, delta));
+                }
+            }
+        };
+        CollectionWatcher.register(application, mCollectionWatcherListener);
+
+        // keep stream title and format apart from list of stations - the list does not show them
+        mNowPlayingObserver = new StateStore.Observer<NowPlaying>() {
+            @Override
+            public void onChanged(NowPlaying nowPlaying) {
+                mNowPlayingLiveData.setValue(nowPlaying);
+            }
+        };
+        StateStore.NOW_PLAYING.subscribe(mNowPlayingObserver);
     }
 
 
     @Override
     protected void onCleared() {
         super.onCleared();
+        // stop watching collection folder
+        CollectionWatcher.unregister(mCollectionWatcherListener);
+        // stop listening for stream title and format
+        StateStore.NOW_PLAYING.unsubscribe(mNowPlayingObserver);
     }
 
 
@@ -81,7 +121,7 @@ public class CollectionViewModel extends AndroidViewModel implements TransistorK
 
 
     /* Getter for StationList */
-    public MutableLiveData<ArrayList<Station>> getStationList() {
+    public MutableLiveData<StationList> getStationList() {
         return mStationListLiveData;
     }
 
@@ -92,12 +132,18 @@ public class CollectionViewModel extends AndroidViewModel implements TransistorK
     }
 
 
+    /* Getter for stream title and format of station from PlayerService */
+    public MutableLiveData<NowPlaying> getNowPlaying() {
+        return mNowPlayingLiveData;
+    }
+
+
     /**
      * Inner class: AsyncTask that loads list in background
      */
-    class LoadCollectionAsyncTask extends AsyncTask<Context, Void, ArrayList<Station>> {
+    class LoadCollectionAsyncTask extends AsyncTask<Context, Void, StationList> {
         @Override
-        protected ArrayList<Station> doInBackground(Context... contexts) {
+        protected StationList doInBackground(Context... contexts) {
 //            // stress test for DiffResult todo remove
 //            try {
 //                Thread.sleep(1500);
@@ -110,7 +156,7 @@ public class CollectionViewModel extends AndroidViewModel implements TransistorK
         }
 
         @Override
-        protected void onPostExecute(ArrayList<Station> stationList) {
+        protected void onPostExecute(StationList stationList) {
             // set live data
             mStationListLiveData.setValue(stationList);
         }
@@ -0,0 +1,209 @@
+/**
+ * NowPlaying.java
+ * Implements the NowPlaying class
+ * A NowPlaying describes what the player service is playing right now
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.core;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.TextUtils;
+
+
+/**
+ * NowPlaying class
+ * Immutable - a change of title or stream format creates a new instance.
+ * Stream titles are split into artist and title, if they follow the "Artist - Title" convention of ICY metadata.
+ */
+public final class NowPlaying implements Parcelable {
+
+    /* Define log tag */
+    private static final String LOG_TAG = NowPlaying.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String ARTIST_TITLE_SEPARATOR = " - ";
+
+
+    /* Main class variables */
+    private final long mStableId;
+    private final String mMetadata;
+    private final String mArtist;
+    private final String mTitle;
+    private final String mMimeType;
+    private final int mBitrate;
+    private final int mChannelCount;
+    private final int mSampleRate;
+
+
+    /* Constructor - takes metadata and stream format of given station */
+    public NowPlaying(Station station) {
+        mStableId = station.getStableId();
+        mMetadata = station.getMetadata();
+        mMimeType = station.getMimeType();
+        mBitrate = station.getBitrate();
+        mChannelCount = station.getChannelCount();
+        mSampleRate = station.getSampleRate();
+
+        // split stream title into artist and title
+        int separator = mMetadata != null ? mMetadata.indexOf(ARTIST_TITLE_SEPARATOR) : -1;
+        if (separator > 0) {
+            mArtist = mMetadata.substring(0, separator).trim();
+            mTitle = mMetadata.substring(separator + ARTIST_TITLE_SEPARATOR.length()).trim();
+        } else {
+            mArtist = "";
+            mTitle = mMetadata != null ? mMetadata : "";
+        }
+    }
+
+
+    /* Constructor used by CREATOR */
+    private NowPlaying(Parcel in) {
+        mStableId = in.readLong();
+        mMetadata = in.readString();
+        mArtist = in.readString();
+        mTitle = in.readString();
+        mMimeType = in.readString();
+        mBitrate = in.readInt();
+        mChannelCount = in.readInt();
+        mSampleRate = in.readInt();
+    }
+
+
+    /* CREATOR for NowPlaying object used to do parcel related operations */
+    public static final Creator<NowPlaying> CREATOR = new Creator<NowPlaying>() {
+        @Override
+        public NowPlaying createFromParcel(Parcel in) {
+            return new NowPlaying(in);
+        }
+
+        @Override
+        public NowPlaying[] newArray(int size) {
+            return new NowPlaying[size];
+        }
+    };
+
+
+    /* Checks if this describes given station */
+    public boolean belongsTo(Station station) {
+        return station != null && station.getStreamUri() != null && station.getStableId() == mStableId;
+    }
+
+
+    /* Checks if stream title differs from stream title of given NowPlaying */
+    public boolean hasOtherMetadata(NowPlaying nowPlaying) {
+        return nowPlaying == null || mStableId != nowPlaying.mStableId || !TextUtils.equals(mMetadata, nowPlaying.mMetadata);
+    }
+
+
+    /* Getter for stable id of station */
+    public long getStableId() {
+        return mStableId;
+    }
+
+
+    /* Getter for complete stream title as sent by station */
+    public String getMetadata() {
+        return mMetadata;
+    }
+
+
+    /* Getter for artist - empty if stream title has no artist part */
+    public String getArtist() {
+        return mArtist;
+    }
+
+
+    /* Getter for title */
+    public String getTitle() {
+        return mTitle;
+    }
+
+
+    /* Getter for MIME type of stream - the codec */
+    public String getMimeType() {
+        return mMimeType;
+    }
+
+
+    /* Getter for bitrate of stream */
+    public int getBitrate() {
+        return mBitrate;
+    }
+
+
+    /* Getter for channel count of stream */
+    public int getChannelCount() {
+        return mChannelCount;
+    }
+
+
+    /* Getter for sample rate of stream */
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof NowPlaying)) {
+            return false;
+        }
+        NowPlaying nowPlaying = (NowPlaying) object;
+        return mStableId == nowPlaying.mStableId &&
+                mBitrate == nowPlaying.mBitrate &&
+                mChannelCount == nowPlaying.mChannelCount &&
+                mSampleRate == nowPlaying.mSampleRate &&
+                TextUtils.equals(mMetadata, nowPlaying.mMetadata) &&
+                TextUtils.equals(mMimeType, nowPlaying.mMimeType);
+    }
+
+
+    @Override
+    public int hashCode() {
+        int result = (int) (mStableId ^ (mStableId >>> 32));
+        result = 31 * result + (mMetadata != null ? mMetadata.hashCode() : 0);
+        result = 31 * result + (mMimeType != null ? mMimeType.hashCode() : 0);
+        result = 31 * result + mBitrate;
+        result = 31 * result + mChannelCount;
+        result = 31 * result + mSampleRate;
+        return result;
+    }
+
+
+    @Override
+    public String toString() {
+        return "NowPlaying [Artist=" + mArtist + ", Title=" + mTitle + ", MimeType=" + mMimeType + ", Bitrate=" + mBitrate + "]";
+    }
+
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(mStableId);
+        dest.writeString(mMetadata);
+        dest.writeString(mArtist);
+        dest.writeString(mTitle);
+        dest.writeString(mMimeType);
+        dest.writeInt(mBitrate);
+        dest.writeInt(mChannelCount);
+        dest.writeInt(mSampleRate);
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * PlaybackState.java
+ * Implements the PlaybackState class
+ * A PlaybackState describes which station the player service is working on and how far it has got
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.core;
+
+
+/**
+ * PlaybackState class
+ * Immutable - holds its own copy of the station. Only one station is active at a time:
+ * every other station is stopped, so observers never need to know about previous states.
+ */
+public final class PlaybackState {
+
+    /* Define log tag */
+    private static final String LOG_TAG = PlaybackState.class.getSimpleName();
+
+
+    /* Main class variables */
+    private final Station mStation;
+    private final boolean mErrorOccurred;
+
+
+    /* Constructor - takes a snapshot of given station */
+    public PlaybackState(Station station) {
+        mStation = new Station(station);
+        mErrorOccurred = false;
+    }
+
+
+    /* Constructor used by error() */
+    private PlaybackState() {
+        mStation = null;
+        mErrorOccurred = true;
+    }
+
+
+    /* Creates state for a player service that lost its station - e.g. after a crash during playback */
+    public static PlaybackState error() {
+        return new PlaybackState();
+    }
+
+
+    /* Getter for station - null if an error occurred */
+    public Station getStation() {
+        return mStation;
+    }
+
+
+    /* Getter for playback state of station */
+    public int getPlaybackState() {
+        return mStation != null ? mStation.getPlaybackState() : -1;
+    }
+
+
+    /* Checks if player service lost its station */
+    public boolean isErrorOccurred() {
+        return mErrorOccurred;
+    }
+
+
+    @Override
+    public String toString() {
+        return "PlaybackState [Station=" + (mStation != null ? mStation.getStationName() : null) + ", State=" + getPlaybackState() + ", Error=" + mErrorOccurred + "]";
+    }
+
+}
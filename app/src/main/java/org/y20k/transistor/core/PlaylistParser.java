@@ -0,0 +1,951 @@
+/**
+ * PlaylistParser.java
+ * Implements the PlaylistParser class
+ * A PlaylistParser reads a playlist in a single pass and reports the streams it contains
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.core;
+
+import org.y20k.transistor.helpers.LogHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * PlaylistParser class
+ * Understands M3U (including #EXTINF attributes), PLS, XSPF, ASX and bare lists of URLs.
+ * Input is read character by character - no Scanner, no regular expressions, no line Strings.
+ */
+public final class PlaylistParser {
+
+    /* Define log tag */
+    private static final String LOG_TAG = PlaylistParser.class.getSimpleName();
+
+
+    /* Keys */
+    public static final int FORMAT_UNKNOWN = 0;
+    public static final int FORMAT_M3U = 1;
+    public static final int FORMAT_PLS = 2;
+    public static final int FORMAT_XSPF = 3;
+    public static final int FORMAT_ASX = 4;
+    public static final int FORMAT_URL_LIST = 5;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+
+    /* Main class variables */
+    private final Listener mListener;
+    private final char[] mReadBuffer;
+    private final StringBuilder mLine;
+    private final StringBuilder mText;
+    private StringBuilder mCapture;
+    private int mCaptureLimit;
+    private int mFormat;
+    private int mEntryCount;
+    private int mExpectedEntryCount;
+    private boolean mStopped;
+    private boolean mLineDiscarded;
+    private boolean mTextDiscarded;
+
+    // M3U state
+    private String mPendingTitle;
+    private long mPendingLength;
+    private Map<String, String> mPendingAttributes;
+
+    // PLS state
+    private TreeMap<Integer, Entry> mPendingPlsEntries;
+
+    // XML state (XSPF + ASX)
+    private Entry mXmlEntry;
+    private String mXmlTextTarget;
+
+
+    /* Constructor */
+    public PlaylistParser(Listener listener) {
+        mListener = listener;
+        mReadBuffer = new char[READ_BUFFER_SIZE];
+        mLine = new StringBuilder(256);
+        mText = new StringBuilder(256);
+        mCaptureLimit = 0;
+        reset();
+    }
+
+
+    /* Keeps a copy of the first characters read - useful for error messages */
+    public void setCaptureLimit(int captureLimit) {
+        mCaptureLimit = captureLimit;
+    }
+
+
+    /* Parses given InputStream (UTF-8) - closes the stream when done */
+    public int parse(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return FORMAT_UNKNOWN;
+        }
+        try (Reader reader = new InputStreamReader(inputStream, UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+
+    /* Parses given Reader - returns detected format */
+    public int parse(Reader reader) throws IOException {
+        reset();
+
+        int length;
+        boolean sniffing = true;
+        while (!mStopped && (length = reader.read(mReadBuffer, 0, READ_BUFFER_SIZE)) != -1) {
+            int start = 0;
+            if (sniffing) {
+                // detect format from first non-blank characters
+                start = skipLeadingBlanks(mReadBuffer, length);
+                if (start == length) {
+                    continue;
+                }
+                mFormat = detectFormat(mReadBuffer, start, length);
+                sniffing = false;
+            }
+            capture(mReadBuffer, start, length);
+            if (mFormat == FORMAT_XSPF || mFormat == FORMAT_ASX) {
+                consumeXml(mReadBuffer, start, length);
+            } else {
+                consumeLines(mReadBuffer, start, length);
+            }
+        }
+
+        // handle input not terminated by a line break
+        if (!mStopped && mFormat != FORMAT_XSPF && mFormat != FORMAT_ASX && mLine.length() > 0) {
+            processLine();
+            mLine.setLength(0);
+        }
+        if (!mStopped && mFormat == FORMAT_PLS) {
+            flushPlsEntries(Integer.MAX_VALUE, true);
+        }
+
+        if (mExpectedEntryCount > 0 && mExpectedEntryCount != mEntryCount) {
+            LogHelper.w(LOG_TAG, "Playlist announced " + mExpectedEntryCount + " entries, but contained " + mEntryCount + ".");
+        }
+        return mFormat;
+    }
+
+
+    /* Getter for number of entries reported to listener */
+    public int getEntryCount() {
+        return mEntryCount;
+    }
+
+
+    /* Getter for format detected during last parse */
+    public int getFormat() {
+        return mFormat;
+    }
+
+
+    /* Getter for captured content - null if capturing was disabled */
+    public String getCapturedContent() {
+        if (mCapture == null) {
+            return null;
+        }
+        return mCapture.toString();
+    }
+
+
+    /* Resets parser state */
+    private void reset() {
+        mLine.setLength(0);
+        mText.setLength(0);
+        mCapture = mCaptureLimit > 0 ? new StringBuilder(Math.min(mCaptureLimit, 1024)) : null;
+        mFormat = FORMAT_UNKNOWN;
+        mEntryCount = 0;
+        mExpectedEntryCount = -1;
+        mStopped = false;
+        mLineDiscarded = false;
+        mTextDiscarded = false;
+        mPendingTitle = null;
+        mPendingLength = -1;
+        mPendingAttributes = null;
+        mPendingPlsEntries = null;
+        mXmlEntry = null;
+        mXmlTextTarget = null;
+    }
+
+
+    /* Copies characters into capture buffer until limit is reached */
+    private void capture(char[] buffer, int start, int end) {
+        if (mCapture != null && mCapture.length() < mCaptureLimit) {
+            mCapture.append(buffer, start, Math.min(end - start, mCaptureLimit - mCapture.length()));
+        }
+    }
+
+
+    /* Skips byte order mark and white space at the beginning of the input */
+    private int skipLeadingBlanks(char[] buffer, int length) {
+        int i = 0;
+        while (i < length && (buffer[i] == '\uFEFF' || Character.isWhitespace(buffer[i]))) {
+            i++;
+        }
+        return i;
+    }
+
+
+    /* Detects playlist format by looking at the first characters */
+    private int detectFormat(char[] buffer, int start, int end) {
+        if (buffer[start] == '<') {
+            // XML based format - look for root element
+            for (int i = start; i < end - 3; i++) {
+                if (buffer[i] != '<') {
+                    continue;
+                }
+                if (regionMatches(buffer, i + 1, end, "asx")) {
+                    return FORMAT_ASX;
+                } else if (regionMatches(buffer, i + 1, end, "playlist")) {
+                    return FORMAT_XSPF;
+                }
+            }
+            // unknown root element: XSPF handling also picks up <location> elements
+            return FORMAT_XSPF;
+        } else if (regionMatches(buffer, start, end, "[playlist]")) {
+            return FORMAT_PLS;
+        } else if (buffer[start] == '#') {
+            return FORMAT_M3U;
+        } else {
+            return FORMAT_URL_LIST;
+        }
+    }
+
+
+    /* Splits characters into lines */
+    private void consumeLines(char[] buffer, int start, int end) {
+        for (int i = start; i < end && !mStopped; i++) {
+            char c = buffer[i];
+            if (c == '\n' || c == '\r') {
+                if (mLineDiscarded) {
+                    // end of overlong line - continue with next one
+                    mLineDiscarded = false;
+                } else if (mLine.length() > 0) {
+                    processLine();
+                    mLine.setLength(0);
+                }
+            } else if (mLineDiscarded) {
+                // skip rest of overlong line
+            } else if (mLine.length() < MAX_LINE_LENGTH) {
+                mLine.append(c);
+            } else {
+                discardLine();
+            }
+        }
+    }
+
+
+    /* Drops current line because it is too long - a cut off line must not end up as address or title */
+    private void discardLine() {
+        LogHelper.w(LOG_TAG, "Skipping line longer than " + MAX_LINE_LENGTH + " characters: " + mLine.substring(0, 64) + "...");
+        mLine.setLength(0);
+        mLineDiscarded = true;
+        // the entry the line belonged to is skipped as a whole
+        mPendingTitle = null;
+        mPendingLength = -1;
+        mPendingAttributes = null;
+    }
+
+
+    /* Processes current line (M3U, PLS and URL lists) */
+    private void processLine() {
+        int start = 0;
+        int end = mLine.length();
+        // trim
+        while (start < end && mLine.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && mLine.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        if (mFormat == FORMAT_PLS) {
+            processPlsLine(start, end);
+        } else {
+            processM3uLine(start, end);
+        }
+    }
+
+
+    /* Processes a line of a M3U file or of a list of URLs */
+    private void processM3uLine(int start, int end) {
+        if (mLine.charAt(start) == '#') {
+            if (regionMatches(mLine, start, end, "#EXTINF:")) {
+                parseExtInf(start + 8, end);
+            }
+            // other directives and comments are ignored
+            return;
+        }
+        if (isStreamUrl(mLine, start, end)) {
+            Entry entry = new Entry(mLine.substring(start, end), mPendingTitle, mPendingLength, mPendingAttributes);
+            mPendingTitle = null;
+            mPendingLength = -1;
+            mPendingAttributes = null;
+            emit(entry);
+        }
+    }
+
+
+    /* Parses #EXTINF:<length> key="value" ...,<title> */
+    private void parseExtInf(int start, int end) {
+        int i = start;
+
+        // length (may be negative)
+        long length = 0;
+        boolean negative = false;
+        boolean hasDigits = false;
+        if (i < end && mLine.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        while (i < end && mLine.charAt(i) >= '0' && mLine.charAt(i) <= '9') {
+            length = length * 10 + (mLine.charAt(i) - '0');
+            hasDigits = true;
+            i++;
+        }
+        while (i < end && mLine.charAt(i) != ',' && mLine.charAt(i) != ' ' && mLine.charAt(i) != '\t') {
+            // skip fractional part
+            i++;
+        }
+        mPendingLength = (hasDigits && !negative) ? length : -1;
+
+        // attributes - a comma outside of quotes ends the attribute section
+        Map<String, String> attributes = null;
+        while (i < end && mLine.charAt(i) != ',') {
+            char c = mLine.charAt(i);
+            if (c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            int keyStart = i;
+            while (i < end && mLine.charAt(i) != '=' && mLine.charAt(i) != ',' && mLine.charAt(i) != ' ') {
+                i++;
+            }
+            int keyEnd = i;
+            if (i >= end || mLine.charAt(i) != '=') {
+                // attribute without value - ignore
+                continue;
+            }
+            i++; // skip '='
+            int valueStart;
+            int valueEnd;
+            if (i < end && mLine.charAt(i) == '"') {
+                valueStart = ++i;
+                while (i < end && mLine.charAt(i) != '"') {
+                    i++;
+                }
+                valueEnd = i;
+                if (i < end) {
+                    i++; // skip closing quote
+                }
+            } else {
+                valueStart = i;
+                while (i < end && mLine.charAt(i) != ' ' && mLine.charAt(i) != ',') {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            if (keyEnd > keyStart) {
+                if (attributes == null) {
+                    attributes = new HashMap<>();
+                }
+                attributes.put(mLine.substring(keyStart, keyEnd), mLine.substring(valueStart, valueEnd));
+            }
+        }
+        mPendingAttributes = attributes;
+
+        // title
+        if (i < end && mLine.charAt(i) == ',') {
+            i++;
+        }
+        while (i < end && mLine.charAt(i) <= ' ') {
+            i++;
+        }
+        mPendingTitle = i < end ? mLine.substring(i, end) : null;
+    }
+
+
+    /* Processes a line of a PLS file */
+    private void processPlsLine(int start, int end) {
+        // find key / value separator
+        int separator = start;
+        while (separator < end && mLine.charAt(separator) != '=') {
+            separator++;
+        }
+        if (separator == end) {
+            // section header like [playlist] or garbage
+            return;
+        }
+
+        // split key into name and index
+        int keyEnd = separator;
+        while (keyEnd > start && mLine.charAt(keyEnd - 1) <= ' ') {
+            keyEnd--;
+        }
+        int indexStart = keyEnd;
+        while (indexStart > start && mLine.charAt(indexStart - 1) >= '0' && mLine.charAt(indexStart - 1) <= '9') {
+            indexStart--;
+        }
+        int valueStart = separator + 1;
+        while (valueStart < end && mLine.charAt(valueStart) <= ' ') {
+            valueStart++;
+        }
+
+        if (indexStart == keyEnd) {
+            // key without index
+            if (regionMatchesExactly(mLine, start, indexStart, "NumberOfEntries")) {
+                mExpectedEntryCount = (int) parseNumber(mLine, valueStart, end);
+            }
+            return;
+        }
+
+        int index = (int) parseNumber(mLine, indexStart, keyEnd);
+        if (regionMatchesExactly(mLine, start, indexStart, "File")) {
+            if (isStreamUrl(mLine, valueStart, end)) {
+                getPlsEntry(index).url = mLine.substring(valueStart, end);
+            }
+        } else if (regionMatchesExactly(mLine, start, indexStart, "Title")) {
+            getPlsEntry(index).title = valueStart < end ? mLine.substring(valueStart, end) : null;
+        } else if (regionMatchesExactly(mLine, start, indexStart, "Length")) {
+            getPlsEntry(index).length = parseNumber(mLine, valueStart, end);
+        } else {
+            return;
+        }
+
+        // entries with lower indices are complete, if they have got a url and a title
+        flushPlsEntries(index, false);
+    }
+
+
+    /* Gets or creates pending PLS entry for given index */
+    private Entry getPlsEntry(int index) {
+        if (mPendingPlsEntries == null) {
+            mPendingPlsEntries = new TreeMap<>();
+        }
+        Entry entry = mPendingPlsEntries.get(index);
+        if (entry == null) {
+            entry = new Entry(null, null, -1, null);
+            mPendingPlsEntries.put(index, entry);
+        }
+        return entry;
+    }
+
+
+    /* Emits pending PLS entries in order of their index */
+    private void flushPlsEntries(int belowIndex, boolean force) {
+        if (mPendingPlsEntries == null) {
+            return;
+        }
+        while (!mStopped && !mPendingPlsEntries.isEmpty()) {
+            Map.Entry<Integer, Entry> first = mPendingPlsEntries.firstEntry();
+            Entry entry = first.getValue();
+            if (first.getKey() >= belowIndex || (!force && (entry.url == null || entry.title == null))) {
+                return;
+            }
+            mPendingPlsEntries.remove(first.getKey());
+            if (entry.url != null) {
+                emit(entry);
+            }
+        }
+    }
+
+
+    /* Scans characters of XSPF and ASX documents */
+    private void consumeXml(char[] buffer, int start, int end) {
+        for (int i = start; i < end && !mStopped; i++) {
+            char c = buffer[i];
+            if (mLine.length() > 0) {
+                // inside of a tag / comment / CDATA section
+                mLine.append(c);
+                if (c == '>' && isTagComplete()) {
+                    processTag();
+                    mLine.setLength(0);
+                } else if (mLine.length() > MAX_LINE_LENGTH) {
+                    // runaway tag - drop it
+                    LogHelper.w(LOG_TAG, "Skipping tag longer than " + MAX_LINE_LENGTH + " characters.");
+                    mLine.setLength(0);
+                }
+            } else if (c == '<') {
+                mLine.append(c);
+            } else if (mXmlTextTarget != null && mText.length() < MAX_LINE_LENGTH) {
+                mText.append(c);
+            } else if (mXmlTextTarget != null && !mTextDiscarded) {
+                // text too long - element is ignored, a cut off text must not end up as address or title
+                LogHelper.w(LOG_TAG, "Skipping <" + mXmlTextTarget + "> longer than " + MAX_LINE_LENGTH + " characters.");
+                mTextDiscarded = true;
+            }
+        }
+    }
+
+
+    /* Checks if the collected markup is complete */
+    private boolean isTagComplete() {
+        int length = mLine.length();
+        if (regionMatches(mLine, 0, length, "<!--")) {
+            return length >= 7 && mLine.charAt(length - 2) == '-' && mLine.charAt(length - 3) == '-';
+        } else if (regionMatches(mLine, 0, length, "<![CDATA[")) {
+            return length >= 12 && mLine.charAt(length - 2) == ']' && mLine.charAt(length - 3) == ']';
+        }
+        // a '>' inside of a quoted attribute value does not end the tag
+        boolean inQuotes = false;
+        char quote = 0;
+        for (int i = 0; i < length - 1; i++) {
+            char c = mLine.charAt(i);
+            if (inQuotes && c == quote) {
+                inQuotes = false;
+            } else if (!inQuotes && (c == '"' || c == '\'')) {
+                inQuotes = true;
+                quote = c;
+            }
+        }
+        return !inQuotes;
+    }
+
+
+    /* Processes a complete tag held in mLine */
+    private void processTag() {
+        int length = mLine.length();
+        if (regionMatches(mLine, 0, length, "<![CDATA[")) {
+            if (mXmlTextTarget != null) {
+                mText.append(mLine, 9, length - 3);
+            }
+            return;
+        }
+        if (length < 3 || mLine.charAt(1) == '!' || mLine.charAt(1) == '?') {
+            // comment, doctype or processing instruction
+            return;
+        }
+
+        boolean closing = mLine.charAt(1) == '/';
+        boolean selfClosing = mLine.charAt(length - 2) == '/';
+        int nameStart = closing ? 2 : 1;
+        int nameEnd = nameStart;
+        while (nameEnd < length - 1 && !Character.isWhitespace(mLine.charAt(nameEnd)) && mLine.charAt(nameEnd) != '/' && mLine.charAt(nameEnd) != '>') {
+            nameEnd++;
+        }
+
+        if (mFormat == FORMAT_ASX) {
+            processAsxTag(nameStart, nameEnd, closing, selfClosing);
+        } else {
+            processXspfTag(nameStart, nameEnd, closing);
+        }
+    }
+
+
+    /* Handles XSPF elements: track, location, title, duration */
+    private void processXspfTag(int nameStart, int nameEnd, boolean closing) {
+        if (regionMatchesExactly(mLine, nameStart, nameEnd, "track")) {
+            if (closing) {
+                finishXmlEntry();
+            } else {
+                mXmlEntry = new Entry(null, null, -1, null);
+            }
+        } else if (mXmlEntry != null && (regionMatchesExactly(mLine, nameStart, nameEnd, "location")
+                || regionMatchesExactly(mLine, nameStart, nameEnd, "title")
+                || regionMatchesExactly(mLine, nameStart, nameEnd, "duration"))) {
+            if (!closing) {
+                mXmlTextTarget = mLine.substring(nameStart, nameEnd);
+                mText.setLength(0);
+                mTextDiscarded = false;
+            } else if (mXmlTextTarget != null) {
+                String text = mTextDiscarded ? "" : decodeEntities(mText).trim();
+                if (mXmlTextTarget.equals("location")) {
+                    if (mXmlEntry.url == null && isStreamUrl(text, 0, text.length())) {
+                        mXmlEntry.url = text;
+                    }
+                } else if (mXmlTextTarget.equals("title")) {
+                    mXmlEntry.title = text.length() > 0 ? text : null;
+                } else {
+                    // XSPF durations are given in milliseconds
+                    long duration = parseNumber(text, 0, text.length());
+                    mXmlEntry.length = duration >= 0 ? duration / 1000 : -1;
+                }
+                mXmlTextTarget = null;
+            }
+        }
+    }
+
+
+    /* Handles ASX elements: entry, ref, title, duration (names are case-insensitive) */
+    private void processAsxTag(int nameStart, int nameEnd, boolean closing, boolean selfClosing) {
+        if (regionMatches(mLine, nameStart, nameEnd, "entry") && nameEnd - nameStart == 5) {
+            if (closing) {
+                finishXmlEntry();
+            } else if (!selfClosing) {
+                mXmlEntry = new Entry(null, null, -1, null);
+            }
+        } else if (mXmlEntry == null) {
+            return;
+        } else if (regionMatches(mLine, nameStart, nameEnd, "ref") && nameEnd - nameStart == 3) {
+            String href = getAttribute(nameEnd, "href");
+            if (mXmlEntry.url == null && href != null && isStreamUrl(href, 0, href.length())) {
+                mXmlEntry.url = href;
+            }
+        } else if (regionMatches(mLine, nameStart, nameEnd, "duration") && nameEnd - nameStart == 8) {
+            String value = getAttribute(nameEnd, "value");
+            if (value != null) {
+                mXmlEntry.length = parseClockTime(value);
+            }
+        } else if (regionMatches(mLine, nameStart, nameEnd, "title") && nameEnd - nameStart == 5) {
+            if (!closing) {
+                mXmlTextTarget = "title";
+                mText.setLength(0);
+                mTextDiscarded = false;
+            } else if (mXmlTextTarget != null) {
+                String text = mTextDiscarded ? "" : decodeEntities(mText).trim();
+                mXmlEntry.title = text.length() > 0 ? text : null;
+                mXmlTextTarget = null;
+            }
+        }
+    }
+
+
+    /* Emits current XML entry */
+    private void finishXmlEntry() {
+        if (mXmlEntry != null && mXmlEntry.url != null) {
+            emit(mXmlEntry);
+        }
+        mXmlEntry = null;
+        mXmlTextTarget = null;
+    }
+
+
+    /* Extracts value of given attribute from tag held in mLine */
+    private String getAttribute(int from, String name) {
+        int length = mLine.length();
+        int i = from;
+        while (i < length) {
+            // skip to start of attribute name
+            while (i < length && (Character.isWhitespace(mLine.charAt(i)) || mLine.charAt(i) == '/')) {
+                i++;
+            }
+            int keyStart = i;
+            while (i < length && mLine.charAt(i) != '=' && !Character.isWhitespace(mLine.charAt(i)) && mLine.charAt(i) != '>') {
+                i++;
+            }
+            int keyEnd = i;
+            while (i < length && Character.isWhitespace(mLine.charAt(i))) {
+                i++;
+            }
+            if (i >= length || mLine.charAt(i) != '=') {
+                if (i < length && mLine.charAt(i) == '>') {
+                    return null;
+                }
+                continue;
+            }
+            i++; // skip '='
+            while (i < length && Character.isWhitespace(mLine.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                return null;
+            }
+            char quote = mLine.charAt(i);
+            int valueStart;
+            int valueEnd;
+            if (quote == '"' || quote == '\'') {
+                valueStart = ++i;
+                while (i < length && mLine.charAt(i) != quote) {
+                    i++;
+                }
+                valueEnd = i;
+                i++;
+            } else {
+                valueStart = i;
+                while (i < length && !Character.isWhitespace(mLine.charAt(i)) && mLine.charAt(i) != '>') {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            if (keyEnd - keyStart == name.length() && regionMatches(mLine, keyStart, keyEnd, name)) {
+                return decodeEntities(mLine.subSequence(valueStart, Math.min(valueEnd, length))).trim();
+            }
+        }
+        return null;
+    }
+
+
+    /* Hands an entry over to the listener */
+    private void emit(Entry entry) {
+        mEntryCount++;
+        if (mListener != null && !mListener.onEntry(entry)) {
+            // listener does not want more entries
+            mStopped = true;
+        }
+    }
+
+
+    /* Checks if given characters start with http:// or https:// */
+    private static boolean isStreamUrl(CharSequence sequence, int start, int end) {
+        return regionMatches(sequence, start, end, "http://") || regionMatches(sequence, start, end, "https://");
+    }
+
+
+    /* Case-insensitive check if region starts with given prefix */
+    private static boolean regionMatches(CharSequence sequence, int start, int end, String prefix) {
+        int length = prefix.length();
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(sequence.charAt(start + i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /* Case-insensitive check if region starts with given prefix */
+    private static boolean regionMatches(char[] buffer, int start, int end, String prefix) {
+        int length = prefix.length();
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(buffer[start + i]) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /* Case-insensitive check if region equals given string */
+    private static boolean regionMatchesExactly(CharSequence sequence, int start, int end, String string) {
+        return end - start == string.length() && regionMatches(sequence, start, end, string);
+    }
+
+
+    /* Parses a non-negative number - returns -1 if region contains no digits */
+    private static long parseNumber(CharSequence sequence, int start, int end) {
+        long number = 0;
+        boolean hasDigits = false;
+        int i = start;
+        if (i < end && sequence.charAt(i) == '-') {
+            return -1;
+        }
+        while (i < end && sequence.charAt(i) >= '0' && sequence.charAt(i) <= '9') {
+            number = number * 10 + (sequence.charAt(i) - '0');
+            hasDigits = true;
+            i++;
+        }
+        return hasDigits ? number : -1;
+    }
+
+
+    /* Parses ASX clock time (hh:mm:ss.ff) into seconds */
+    private static long parseClockTime(String value) {
+        long seconds = 0;
+        long field = 0;
+        boolean hasDigits = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                field = field * 10 + (c - '0');
+                hasDigits = true;
+            } else if (c == ':') {
+                seconds = (seconds + field) * 60;
+                field = 0;
+            } else if (c == '.') {
+                break;
+            } else if (!Character.isWhitespace(c)) {
+                return -1;
+            }
+        }
+        return hasDigits ? seconds + field : -1;
+    }
+
+
+    /* Decodes the predefined XML entities and numeric character references */
+    private static String decodeEntities(CharSequence text) {
+        int length = text.length();
+        StringBuilder sb = null;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int semicolon = -1;
+            if (c == '&') {
+                for (int j = i + 1; j < length && j < i + 10; j++) {
+                    if (text.charAt(j) == ';') {
+                        semicolon = j;
+                        break;
+                    }
+                }
+            }
+            if (semicolon == -1) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                i++;
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(length);
+                sb.append(text, 0, i);
+            }
+            String entity = text.subSequence(i + 1, semicolon).toString();
+            if (entity.equals("amp")) {
+                sb.append('&');
+            } else if (entity.equals("lt")) {
+                sb.append('<');
+            } else if (entity.equals("gt")) {
+                sb.append('>');
+            } else if (entity.equals("quot")) {
+                sb.append('"');
+            } else if (entity.equals("apos")) {
+                sb.append('\'');
+            } else if (entity.length() > 1 && entity.charAt(0) == '#') {
+                try {
+                    int codePoint;
+                    if (entity.charAt(1) == 'x' || entity.charAt(1) == 'X') {
+                        codePoint = Integer.parseInt(entity.substring(2), 16);
+                    } else {
+                        codePoint = Integer.parseInt(entity.substring(1));
+                    }
+                    sb.appendCodePoint(codePoint);
+                } catch (IllegalArgumentException e) {
+                    sb.append(text, i, semicolon + 1);
+                }
+            } else {
+                sb.append(text, i, semicolon + 1);
+            }
+            i = semicolon + 1;
+        }
+        return sb != null ? sb.toString() : text.toString();
+    }
+
+
+    /**
+     * Inner class: Receives entries while the playlist is being read
+     */
+    public interface Listener {
+        /* Called for every stream found - return false to stop parsing */
+        boolean onEntry(Entry entry);
+    }
+    /**
+     * End of inner class
+     */
+
+
+    /**
+     * Inner class: A single stream found in a playlist
+     */
+    public static final class Entry {
+
+        /* Main class variables */
+        String url;
+        String title;
+        long length;
+        Map<String, String> attributes;
+
+        /* Constructor */
+        Entry(String url, String title, long length, Map<String, String> attributes) {
+            this.url = url;
+            this.title = title;
+            this.length = length;
+            this.attributes = attributes;
+        }
+
+        /* Getter for stream url */
+        public String getUrl() {
+            return url;
+        }
+
+        /* Getter for title - null if playlist did not contain one */
+        public String getTitle() {
+            return title;
+        }
+
+        /* Getter for length in seconds - -1 if unknown or infinite */
+        public long getLength() {
+            return length;
+        }
+
+        /* Getter for an attribute (M3U #EXTINF only) - null if not present */
+        public String getAttribute(String key) {
+            if (attributes == null) {
+                return null;
+            }
+            return attributes.get(key);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry [Url=" + url + ", Title=" + title + ", Length=" + length + "]";
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+
+    /**
+     * Inner class: Listener that collects urls and titles (titles are aligned with urls, missing titles are null)
+     */
+    public static final class EntryCollector implements Listener {
+
+        /* Main class variables */
+        private final int mMaxEntries;
+        private final ArrayList<String> mUrls;
+        private final ArrayList<String> mTitles;
+        private Entry mFirstEntry;
+
+        /* Constructor */
+        public EntryCollector(int maxEntries) {
+            mMaxEntries = maxEntries;
+            mUrls = new ArrayList<>();
+            mTitles = new ArrayList<>();
+        }
+
+        @Override
+        public boolean onEntry(Entry entry) {
+            if (mFirstEntry == null) {
+                mFirstEntry = entry;
+            }
+            mUrls.add(entry.url);
+            mTitles.add(entry.title);
+            return mUrls.size() < mMaxEntries;
+        }
+
+        /* Getter for first entry - null if playlist was empty */
+        public Entry getFirstEntry() {
+            return mFirstEntry;
+        }
+
+        /* Getter for list of urls */
+        public ArrayList<String> getUrls() {
+            return mUrls;
+        }
+
+        /* Getter for list of titles */
+        public ArrayList<String> getTitles() {
+            return mTitles;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
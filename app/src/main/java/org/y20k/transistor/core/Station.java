@@ -17,7 +17,6 @@ package org.y20k.transistor.core;
 import android.annotation.SuppressLint;
 import android.content.ContentResolver;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcel;
@@ -27,27 +26,22 @@ import android.support.v4.media.MediaMetadataCompat;
 import androidx.annotation.NonNull;
 
 import org.y20k.transistor.helpers.LogHelper;
+import org.y20k.transistor.helpers.StreamProbeCache;
 import org.y20k.transistor.helpers.TransistorKeys;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Locale;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static android.support.v4.media.MediaMetadataCompat.METADATA_KEY_MEDIA_URI;
 import static android.support.v4.media.MediaMetadataCompat.METADATA_KEY_TITLE;
@@ -61,17 +55,22 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     /* Define log tag */
     private static final String LOG_TAG = Station.class.getSimpleName();
 
-    /* Regular expression to extract content-type and charset from header string - supported content types are in TransistorKeys*/
-    private static final Pattern CONTENT_TYPE_PATTERN = Pattern.compile("([^;]*)(; ?charset=([^;]+))?");
+
+    /* Sanity limits for playlists read during station creation */
+    private static final int MAX_PLAYLIST_ENTRIES = 256;
+    private static final int MAX_PLAYLIST_CONTENT_LENGTH = 4096;
+    private static final int MAX_REMOTE_PLAYLIST_BYTES = 1024 * 1024;
 
 
     /* Main class variables */
     private File mStationImageFile;
     private long mStationImageSize;
+    private long mStationImageLastModified;
     private String mStationName;
     private File mStationPlaylistFile;
     private Uri mStreamUri;
     private String mPlaylistFileContent;
+    private int mBufferProfile;
     private int mPlayback;
     private boolean mSelected;
     private String mMetadata;
@@ -109,11 +108,8 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         // store file
         mStationPlaylistFile = file;
 
-        // read local playlist file from  Collection folder
-        mPlaylistFileContent = readPlaylist(getInputStream(file));
-
-        // parse station data
-        parse(mPlaylistFileContent);
+        // read and parse local playlist file from Collection folder in one pass
+        parse(getInputStream(file), false);
 
         // set image file object
         File folder = mStationPlaylistFile.getParentFile();
@@ -146,11 +142,8 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
 
         // content type is playlist
         else if (isPlaylist(contentType)) {
-            // read remote playlist file and put result into mPlaylistFileContent
-            mPlaylistFileContent = readPlaylist(getInputStream(fileLocation));
-
-            // parse station data
-            int parseResult = parse(mPlaylistFileContent);
+            // read and parse remote playlist file - keeps beginning of file in mPlaylistFileContent
+            int parseResult = parse(getInputStream(fileLocation), true);
 
             // put results in bundle (for StationFetcher)
             if (parseResult == CONTAINS_ONE_STREAM && mStreamUri != null) {
@@ -204,11 +197,8 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         // get file from Uri
         mStationPlaylistFile = new File(uri.getPath());
 
-        // read local file and put result into mPlaylistFileContent
-        mPlaylistFileContent = readPlaylist(getInputStream(contentResolver, uri));
-
-        // parse station data
-        int parseResult = parse(mPlaylistFileContent);
+        // read and parse local file - keeps beginning of file in mPlaylistFileContent
+        int parseResult = parse(getInputStream(contentResolver, uri), true);
 
         // put results in bundle (for StationFetcher)
         if (parseResult == CONTAINS_ONE_STREAM  &&  mStreamUri != null) {
@@ -238,6 +228,26 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     }
 
 
+    /* Constructor when given folder, name and stream address (e.g. an entry of an imported playlist) */
+    public Station(File folder, String stationName, Uri streamUri) {
+        // create results bundle
+        mStationFetchResults = new Bundle();
+        mStationFetchResults.putInt(RESULT_FETCH_STATUS, CONTAINS_ONE_STREAM);
+
+        // set name, stream and buffer profile
+        mStationName = stationName;
+        mStreamUri = streamUri;
+        mBufferProfile = BUFFER_PROFILE_BALANCED;
+
+        // set Transistor's playlist and image file objects
+        setStationPlaylistFile(folder);
+        setStationImageFile(folder);
+
+        // initialize variables that are set during playback to default values
+        initializePlaybackMetadata();
+    }
+
+
     /* Constructor when given MediaMetadata (e.g. from Android Auto)  */
     @SuppressLint("WrongConstant")
     public Station (MediaMetadataCompat stationMediaMetadata) {
@@ -247,10 +257,12 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         if (stationMediaMetadata.getString(METADATA_CUSTOM_KEY_IMAGE_FILE) != null) {
             mStationImageFile = new File(stationMediaMetadata.getString(METADATA_CUSTOM_KEY_IMAGE_FILE));
             mStationImageSize = mStationImageFile.length();
+            mStationImageLastModified = mStationImageFile.lastModified();
         }
         if (stationMediaMetadata.getString(METADATA_CUSTOM_KEY_PLAYLIST_FILE) != null) {
             mStationPlaylistFile = new File(stationMediaMetadata.getString(METADATA_CUSTOM_KEY_PLAYLIST_FILE));
         }
+        mBufferProfile = (int) stationMediaMetadata.getLong(METADATA_CUSTOM_KEY_BUFFER_PROFILE);
 //        mPlaylistFileContent = "";
 //        mMetadata = "";
 //        mMimeType = "";
@@ -264,6 +276,8 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     /* Copy Constructor */
     public Station(Station station) {
         this(station.getStationImageFile(), station.getStationImageSize(), station.getStationName(), station.getStationPlaylistFile(), station.getStreamUri(), station.getPlaylistFileContent(), station.getPlaybackState(), station.getSelectionState(), station.getMetadata(), station.getMimeType(), station.getChannelCount(), station.getSampleRate(), station.getBitrate(), station.getStationFetchResults());
+        mBufferProfile = station.getBufferProfile();
+        mStationImageLastModified = station.getStationImageLastModified();
     }
 
 
@@ -283,6 +297,8 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         mChannelCount = in.readInt();
         mSampleRate = in.readInt();
         mBitrate = in.readInt();
+        mBufferProfile = in.readInt();
+        mStationImageLastModified = in.readLong();
     }
 
 
@@ -323,7 +339,12 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         // construct m3u String
         StringBuilder sb = new StringBuilder("");
         sb.append("#EXTM3U\n\n");
-        sb.append("#EXTINF:-1,");
+        sb.append("#EXTINF:-1");
+        if (mBufferProfile != BUFFER_PROFILE_BALANCED) {
+            // store non-default buffer profile as attribute - other players ignore it
+            sb.append(" ").append(PLAYLIST_ATTRIBUTE_BUFFER_PROFILE).append("=\"").append(BUFFER_PROFILE_KEYS[mBufferProfile]).append("\"");
+        }
+        sb.append(",");
         sb.append(mStationName);
         sb.append("\n");
         sb.append(mStreamUri.toString());
@@ -369,46 +390,10 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
 //    }
 
 
-    /* Reads InputStream from a playlist file or location and return it as String*/
-    private String readPlaylist(InputStream inputStream) {
-
-        LogHelper.v(LOG_TAG, "Reading input stream... ");
-        try {
-            // write input stream line by line to string
-            BufferedReader br = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            int counter = 0;
-
-            // read until last last reached or until sanity limit of 32 lines
-            while ((line = br.readLine()) != null && counter < 32) {
-                sb.append(line);
-                sb.append("\n");
-                counter++;
-            }
-            inputStream.close();
-
-            if (sb.length() == 0) {
-                LogHelper.e(LOG_TAG, "Input stream was empty.");
-            }
-
-            // return content as String
-            return sb.toString();
-
-        } catch (IOException e) {
-            LogHelper.e(LOG_TAG, "Unable to read playlist file.");
-            // set mPlaylistFileContent and return null
-            mPlaylistFileContent = "[IO error. Unable to read playlist file.]";
-            return null;
-        }
-
-    }
-
-
-    /* Get InputStream from remote location (URL) */
+    /* Get InputStream from remote location (URL) - reading stops after MAX_REMOTE_PLAYLIST_BYTES */
     private InputStream getInputStream(URL url) {
         try {
-            return url.openStream();
+            return new LimitedInputStream(url.openStream(), MAX_REMOTE_PLAYLIST_BYTES);
         } catch (IOException e) {
             LogHelper.e(LOG_TAG, "Unable open remote location: " + e.toString());
             return null;
@@ -455,51 +440,39 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     }
 
 
-    /* Returns content type for given URL */
+    /* Returns content type for given URL - uses probe cache if possible */
     private ContentType getContentType(URL fileLocation) {
         ContentType contentType = null;
         try {
-            HttpURLConnection connection = createConnection(fileLocation);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            String contentTypeHeader = connection.getContentType();
-
-            if (contentTypeHeader != null) {
-                LogHelper.i(LOG_TAG, "Determining content type. Result: " + contentTypeHeader);
-                Matcher matcher = CONTENT_TYPE_PATTERN.matcher(contentTypeHeader.trim().toLowerCase(Locale.ENGLISH));
-                if (matcher.find()) {
-                    contentType = new ContentType();
-                    String contentTypeString = matcher.group(1);
-                    String charsetString = matcher.group(3);
-                    if (contentTypeString != null) {
-                        contentType.type = contentTypeString.trim();
-                    }
-                    if (charsetString != null) {
-                        contentType.charset = charsetString.trim();
-                    }
-                    if (contentType.type.contains("application/octet-stream")) {
-                        LogHelper.w(LOG_TAG, "Special case \"application/octet-stream\": use file name to set correct content type.");
-                        String headerFieldContentDisposition = connection.getHeaderField("Content-Disposition");
-                        if (headerFieldContentDisposition != null) {
-                            String fileName = headerFieldContentDisposition.split("=")[1].replace("\"",""); //getting value after '=' & stripping any "s
-                            if (fileName.endsWith(FILE_EXTENSION_PLS)) {
-                                contentType.type = CONTENT_TYPES_PLS[0];
-                                LogHelper.i(LOG_TAG, "Found .pls playlist file: " +  fileName);
-                            } else if (fileName.endsWith(FILE_EXTENSION_M3U)) {
-                                contentType.type = CONTENT_TYPES_M3U[0];
-                                LogHelper.i(LOG_TAG, "Found .m3u playlist file: " +  fileName);
-                            } else {
-                                LogHelper.i(LOG_TAG, "File name does not seem to be a playlist: " +  fileName);
-                            }
+            StreamProbeCache.ProbeResult probeResult = StreamProbeCache.getOrProbe(fileLocation.toString());
+            String contentTypeString = probeResult.getContentType();
+
+            if (contentTypeString != null) {
+                LogHelper.i(LOG_TAG, "Determining content type. Result: " + probeResult.toString());
+                contentType = new ContentType();
+                contentType.type = contentTypeString;
+                contentType.charset = probeResult.getCharset();
+                if (contentType.type.contains("application/octet-stream")) {
+                    LogHelper.w(LOG_TAG, "Special case \"application/octet-stream\": use file name to set correct content type.");
+                    String headerFieldContentDisposition = probeResult.getContentDisposition();
+                    if (headerFieldContentDisposition != null && headerFieldContentDisposition.contains("=")) {
+                        String fileName = headerFieldContentDisposition.split("=")[1].replace("\"",""); //getting value after '=' & stripping any "s
+                        if (fileName.endsWith(FILE_EXTENSION_PLS)) {
+                            contentType.type = CONTENT_TYPES_PLS[0];
+                            LogHelper.i(LOG_TAG, "Found .pls playlist file: " +  fileName);
+                        } else if (fileName.endsWith(FILE_EXTENSION_M3U)) {
+                            contentType.type = CONTENT_TYPES_M3U[0];
+                            LogHelper.i(LOG_TAG, "Found .m3u playlist file: " +  fileName);
                         } else {
-                            LogHelper.i(LOG_TAG, "Unable to get file name from \"Content-Disposition\" header field.");
+                            LogHelper.i(LOG_TAG, "File name does not seem to be a playlist: " +  fileName);
                         }
+                    } else {
+                        LogHelper.i(LOG_TAG, "Unable to get file name from \"Content-Disposition\" header field.");
                     }
                 }
             } else {
                 LogHelper.w(LOG_TAG, "Unable to determine content type. Type is null.");
             }
-            connection.disconnect();
         } catch (Exception e) {
             LogHelper.e(LOG_TAG, "Unable to determine content type. HTTP connection failed");
             e.printStackTrace();
@@ -555,55 +528,49 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
 
 
 
-    /* Parses string representation of mStationPlaylistFile */
-    private int parse(String fileContent) {
-
-        mPlaylistFileContent = fileContent;
+    /* Reads and parses playlist from given InputStream in a single pass */
+    private int parse(InputStream inputStream, boolean keepContent) {
 
         // check for null
-        if (fileContent == null) {
+        if (inputStream == null) {
+            mPlaylistFileContent = "[IO error. Unable to read playlist file.]";
             return CONTAINS_NO_STREAM;
         }
 
-        // prepare scanner
-        Scanner in = new Scanner(fileContent);
-        String line;
-        ArrayList<String> uris = new ArrayList<String>();
-        ArrayList<String> names = new ArrayList<String>();
-
-        while (in.hasNextLine()) {
-            // get a line from file content
-            line = in.nextLine();
-
-            // M3U: found station name
-            if (line.contains("#EXTINF:-1,")) {
-                names.add(line.substring(11).trim());
-                // M3U: found stream URL
-            } else if (line.startsWith("http")) {
-                uris.add(line.trim());
-            }
+        // prepare parser
+        PlaylistParser.EntryCollector collector = new PlaylistParser.EntryCollector(MAX_PLAYLIST_ENTRIES);
+        PlaylistParser parser = new PlaylistParser(collector);
+        if (keepContent) {
+            parser.setCaptureLimit(MAX_PLAYLIST_CONTENT_LENGTH);
+        }
 
-            // PLS: found station name
-            else if (line.matches("^Title[0-9]+=.*")) {
-                names.add(line.substring(line.indexOf("=") + 1).trim());
-                // PLS: found stream URL
-            } else if (line.matches("^File[0-9]+=http.*")) {
-                uris.add(line.substring(line.indexOf("=") + 1).trim());
+        // read and parse input stream
+        try {
+            parser.parse(inputStream);
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to read playlist file: " + e.toString());
+            if (inputStream instanceof LimitedInputStream && ((LimitedInputStream) inputStream).isLimitReached()) {
+                // e.g. an endless stream served as playlist
+                mPlaylistFileContent = "[Playlist file is too large.]";
+            } else {
+                mPlaylistFileContent = "[IO error. Unable to read playlist file.]";
             }
-
+            return CONTAINS_NO_STREAM;
         }
+        mPlaylistFileContent = parser.getCapturedContent();
 
-        in.close();
+        ArrayList<String> uris = collector.getUrls();
+        ArrayList<String> names = collector.getTitles();
 
         // CASE 1: playlist was empty - let StationFetcher handle that
         if (uris.size() == 0) {
-            LogHelper.e(LOG_TAG, "Unable to parse: " + fileContent + uris.toString());
+            LogHelper.e(LOG_TAG, "Unable to parse: " + (mStationPlaylistFile != null ? mStationPlaylistFile.getName() : mPlaylistFileContent));
             return CONTAINS_NO_STREAM;
         }
 
-        // CASE 1: playlist contains multiple streams
+        // CASE 2: playlist contains multiple streams
         else if (uris.size() > 1) {
-            LogHelper.v(LOG_TAG, "Playlist contains multiple stations: " + fileContent);
+            LogHelper.v(LOG_TAG, "Playlist contains multiple stations: " + uris.size());
             mStationFetchResults.putStringArrayList(RESULT_LIST_OF_URIS, uris);
             mStationFetchResults.putStringArrayList(RESULT_LIST_OF_NAMES, names);
             return CONTAINS_MULTIPLE_STREAMS;
@@ -612,25 +579,42 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         // CASE 3: playlist has one stream
         else {
             // get Uri and Name
-            mStreamUri = Uri.parse(uris.get(0));
+            PlaylistParser.Entry entry = collector.getFirstEntry();
+            mStreamUri = Uri.parse(entry.getUrl());
+            mBufferProfile = findBufferProfile(entry.getAttribute(PLAYLIST_ATTRIBUTE_BUFFER_PROFILE));
 
             // get station name
-            if (names.size() >= 1) {
+            if (entry.getTitle() != null) {
                 // use name extracted from playlist
-                mStationName = names.get(0);
+                mStationName = entry.getTitle();
             } else if (mStationPlaylistFile != null && mStationName == null) {
                 // try to construct name of station from remote mStationPlaylistFile name
-                mStationName = mStationPlaylistFile.getName().substring(0, mStationPlaylistFile.getName().lastIndexOf("."));
+                String fileName = mStationPlaylistFile.getName();
+                int extensionStart = fileName.lastIndexOf(".");
+                mStationName = extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
             } else if (mStationPlaylistFile == null && mStationName == null) {
                 // use default name
                 mStationName = "New Station";
             }
-            // file content string parsed successfully
+            // playlist parsed successfully
             return CONTAINS_ONE_STREAM;
         }
     }
 
 
+    /* Maps buffer profile key from playlist file to buffer profile - unknown keys fall back to default */
+    private int findBufferProfile(String bufferProfileKey) {
+        if (bufferProfileKey != null) {
+            for (int i = 0; i < BUFFER_PROFILE_KEYS.length; i++) {
+                if (BUFFER_PROFILE_KEYS[i].equalsIgnoreCase(bufferProfileKey.trim())) {
+                    return i;
+                }
+            }
+        }
+        return BUFFER_PROFILE_BALANCED;
+    }
+
+
     /* Writes station as m3u to storage */
     public void writePlaylistFile(File folder) {
 
@@ -653,118 +637,6 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     }
 
 
-    /* Fetches station image from the internet */
-    public Bitmap fetchImageFile(URL stationURL) {
-
-        // check image file and url for null
-        if (mStationImageFile == null || stationURL == null) {
-            LogHelper.e(LOG_TAG, "Unable to fetch favicon.");
-            return null;
-        }
-
-        // initialize stationImage to NULL
-        Bitmap stationImage = null;
-
-        // Get favicon address
-        String host = stationURL.getHost();
-        if (!host.startsWith("www")) {
-            int index = host.indexOf(".");
-            host = "www" + host.substring(index);
-        }
-        String faviconUrlString = "http://" + host + "/favicon.ico";
-
-        try {
-            // try to get image from favicon location
-            LogHelper.v(LOG_TAG, "fetching favicon " + mStationImageFile.toString() + "from " + faviconUrlString);
-            HttpURLConnection connection = createConnection(new URL(faviconUrlString));
-
-            // get image data and decode stream
-            InputStream inputStream = connection.getInputStream();
-            stationImage = BitmapFactory.decodeStream(inputStream);
-
-            // close stream and disconnect connection
-            inputStream.close();
-            connection.disconnect();
-
-            return stationImage;
-
-        } catch (IOException e) {
-            LogHelper.e(LOG_TAG, "Unable to load favicon from URL: " + faviconUrlString);
-            e.printStackTrace();
-            return stationImage;
-        }
-//        try {
-//            // open connection
-//            HttpURLConnection connection = (HttpURLConnection)(new URL(faviconUrlString).openConnection());
-//
-//            // handle redirects
-//            boolean redirect = false;
-//            int status = connection.getResponseCode();
-//            if (status != HttpURLConnection.HTTP_OK) {
-//                if (status == HttpURLConnection.HTTP_MOVED_TEMP
-//                        || status == HttpURLConnection.HTTP_MOVED_PERM
-//                        || status == HttpURLConnection.HTTP_SEE_OTHER)
-//                    redirect = true;
-//            }
-//            if (redirect) {
-//                // get redirect url from "location" header field
-//                String newUrl = connection.getHeaderField("Location");
-//                connection = (HttpURLConnection) new URL(newUrl).openConnection();
-//            }
-//
-//            // get image data and decode stream
-//            InputStream inputStream = connection.getInputStream();
-//            stationImage = BitmapFactory.decodeStream(inputStream);
-//
-//            // close stream and disconnect connection
-//            inputStream.close();
-//            connection.disconnect();
-//
-//            return stationImage;
-//
-//        } catch (IOException e) {
-//            LogHelper.e(LOG_TAG, "Unable to load favicon from URL: " + faviconUrlString);
-//            e.printStackTrace();
-//            return stationImage;
-//        }
-
-
-    }
-
-
-    /* Creates a http connection from given url */
-    private HttpURLConnection createConnection (URL fileLocation) {
-
-        HttpURLConnection connection = null;
-        try {
-            // open connection
-            LogHelper.i(LOG_TAG, "Opening http connection.");
-            connection = (HttpURLConnection)fileLocation.openConnection();
-
-            // handle redirects
-            boolean redirect = false;
-            int status = connection.getResponseCode();
-            if (status != HttpURLConnection.HTTP_OK) {
-                if (status == HttpURLConnection.HTTP_MOVED_TEMP
-                        || status == HttpURLConnection.HTTP_MOVED_PERM
-                        || status == HttpURLConnection.HTTP_SEE_OTHER)
-                    redirect = true;
-            }
-            if (redirect) {
-                // get redirect url from "location" header field
-                LogHelper.i(LOG_TAG, "Following a redirect.");
-                String newUrl = connection.getHeaderField("Location");
-                connection = (HttpURLConnection) new URL(newUrl).openConnection();
-            }
-            return connection;
-        } catch (IOException e) {
-            LogHelper.e(LOG_TAG, "Unable to open http connection.");
-            e.printStackTrace();
-            return connection;
-        }
-    }
-
-
     /* Writes given station image as png to storage */
     public void writeImageFile(Bitmap stationImage) {
 
@@ -814,6 +686,12 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     }
 
 
+    /* Getter for modification time of station image - 0 if image does not exist or time is unknown */
+    public long getStationImageLastModified() {
+        return mStationImageLastModified;
+    }
+
+
     /* Getter for name of station */
     public String getStationName() {
         return mStationName;
@@ -838,12 +716,40 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         return mStationName.toLowerCase() + String.valueOf(getStreamUri().hashCode());
     }
 
+
+    /* Getter for stable station id - derived from the stream address only, so it survives renames */
+    public long getStableId() {
+        return createStableId(mStreamUri);
+    }
+
+
+    /* Creates a stable id for given stream address (64-bit FNV-1a hash) */
+    public static long createStableId(Uri streamUri) {
+        if (streamUri == null) {
+            return 0;
+        }
+        String streamUriString = streamUri.toString();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < streamUriString.length(); i++) {
+            hash ^= streamUriString.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+
     /* Getter for URL of stream */
     public Uri getStreamUri() {
         return mStreamUri;
     }
 
 
+    /* Getter for buffer profile used by player */
+    public int getBufferProfile() {
+        return mBufferProfile;
+    }
+
+
     /* Getter for Content of playlist file */
     public String getPlaylistFileContent() {
         return mPlaylistFileContent;
@@ -903,13 +809,21 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
             String fileLocation = folder.toString() + "/" + stationNameCleaned + ".png";
             mStationImageFile = new File(fileLocation);
             mStationImageSize = mStationImageFile.length();
+            mStationImageLastModified = mStationImageFile.lastModified();
         } else {
             mStationImageFile = null;
             mStationImageSize = 0;
+            mStationImageLastModified = 0;
         }
     }
 
 
+    /* Setter for modification time of station image - e.g. when known from a snapshot */
+    public void setStationImageLastModified(long stationImageLastModified) {
+        mStationImageLastModified = stationImageLastModified;
+    }
+
+
     /* Setter for name of station */
     public void setStationName(String stationName) {
         mStationName = stationName;
@@ -946,6 +860,12 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
     }
 
 
+    /* Setter for buffer profile used by player */
+    public void setBufferProfile(int bufferProfile) {
+        mBufferProfile = bufferProfile;
+    }
+
+
     /* Setter for channel count (mono / stereo) of station during playback */
     public void setChannelCount(int channelCount) {
         mChannelCount = channelCount;
@@ -999,9 +919,77 @@ public final class Station implements TransistorKeys, Cloneable, Comparable<Stat
         dest.writeInt(mChannelCount);
         dest.writeInt(mSampleRate);
         dest.writeInt(mBitrate);
+        dest.writeInt(mBufferProfile);
+        dest.writeLong(mStationImageLastModified);
     }
 
 
+    /**
+     * Inner class: InputStream that fails once more than a given number of bytes has been read
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        /* Main class variables */
+        private final long mLimit;
+        private long mCount;
+
+        /* Constructor */
+        private LimitedInputStream(InputStream inputStream, long limit) {
+            super(inputStream);
+            mLimit = limit;
+            mCount = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkLimit();
+            int value = super.read();
+            if (value != -1) {
+                mCount++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+            checkLimit();
+            int bytesRead = super.read(buffer, offset, (int) Math.min(length, mLimit - mCount + 1));
+            if (bytesRead > 0) {
+                mCount += bytesRead;
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkLimit();
+            long skipped = super.skip(Math.min(n, mLimit - mCount + 1));
+            mCount += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /* Checks if more bytes than allowed have been read */
+        private boolean isLimitReached() {
+            return mCount > mLimit;
+        }
+
+        /* Stops reading once limit has been passed */
+        private void checkLimit() throws IOException {
+            if (isLimitReached()) {
+                throw new IOException("Playlist exceeds " + mLimit + " bytes");
+            }
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+
     /**
      * Container class representing the content-type and charset string
      * received from the response header of an HTTP server.
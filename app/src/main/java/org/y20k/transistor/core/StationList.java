@@ -0,0 +1,362 @@
+/**
+ * StationList.java
+ * Implements the StationList class
+ * A StationList is an immutable list of stations that can be searched by stream address, stable id and playlist file
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.core;
+
+import android.net.Uri;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+
+
+/**
+ * StationList class
+ * Stations are kept in a trie of 32-slot arrays. Updates copy only the path from the root to the changed
+ * slot - every other node, and every unchanged station, is shared with the previous version of the list.
+ * Stations must not be modified once they are part of a list: change a copy and put it in with with().
+ *
+ * Hash indexes map stream address, stable id and playlist file to list position. They are built on the
+ * first lookup and handed on to new versions of the list, as long as no station has changed its keys.
+ * Appending extends a copy of the indexes - only removals and sorting make the next lookup rebuild them.
+ */
+public final class StationList extends AbstractList<Station> implements RandomAccess {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StationList.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+
+    /* Main class variables */
+    private final Object[] mRoot;
+    private final int mShift;
+    private final int mSize;
+    private Index mIndex;
+
+
+    /* Constructor (empty list) */
+    public StationList() {
+        this(new Object[WIDTH], 0, 0, null);
+    }
+
+
+    /* Constructor (list containing given stations) */
+    public StationList(Collection<Station> stations) {
+        this(stations.toArray());
+    }
+
+
+    /* Constructor used by the public constructors - builds the trie bottom-up */
+    private StationList(Object[] stations) {
+        Object[] nodes = stations.length > 0 ? createNodes(stations) : new Object[] {new Object[WIDTH]};
+        int shift = 0;
+        while (nodes.length > 1) {
+            nodes = createNodes(nodes);
+            shift += BITS;
+        }
+        mRoot = (Object[]) nodes[0];
+        mShift = shift;
+        mSize = stations.length;
+        mIndex = null;
+    }
+
+
+    /* Constructor used by updates */
+    private StationList(Object[] root, int shift, int size, Index index) {
+        mRoot = root;
+        mShift = shift;
+        mSize = size;
+        mIndex = index;
+    }
+
+
+    @Override
+    public Station get(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + " - size " + mSize);
+        }
+        Object[] node = mRoot;
+        for (int level = mShift; level > 0; level -= BITS) {
+            node = (Object[]) node[(position >>> level) & MASK];
+        }
+        return (Station) node[position & MASK];
+    }
+
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+
+    /* Returns new list with station at given position replaced - this list is not changed */
+    public StationList with(int position, Station station) {
+        Station previousStation = get(position);
+        if (previousStation == station) {
+            return this;
+        }
+        // same keys - e.g. new playback state or metadata - new list can use the indexes of this list
+        Index index = hasSameKeys(previousStation, station) ? mIndex : null;
+        return new StationList(copyPath(mShift, mRoot, position, station), mShift, mSize, index);
+    }
+
+
+    /* Returns new list with given station appended - this list is not changed */
+    public StationList plus(Station station) {
+        return plusAll(Collections.singletonList(station));
+    }
+
+
+    /* Returns new list with given stations appended - this list is not changed */
+    public StationList plusAll(List<Station> stations) {
+        if (stations.isEmpty()) {
+            return this;
+        }
+        StationList stationList = this;
+        for (Station station : stations) {
+            stationList = stationList.append(station);
+        }
+        // positions of other stations do not change - new list gets the indexes of this list plus the keys of given stations
+        Index index = mIndex != null ? new Index(mIndex, stations, mSize) : null;
+        return new StationList(stationList.mRoot, stationList.mShift, stationList.mSize, index);
+    }
+
+
+    /* Returns new list with given station appended - without indexes */
+    private StationList append(Station station) {
+        if (mSize == 1 << (mShift + BITS)) {
+            // trie is full - add a level on top
+            Object[] root = new Object[WIDTH];
+            root[0] = mRoot;
+            return new StationList(copyPath(mShift + BITS, root, mSize, station), mShift + BITS, mSize + 1, null);
+        }
+        return new StationList(copyPath(mShift, mRoot, mSize, station), mShift, mSize + 1, null);
+    }
+
+
+    /* Returns new list without the station at given position - this list is not changed */
+    public StationList minus(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + " - size " + mSize);
+        }
+        // positions of all following stations change - rebuild the trie, stations are shared
+        Object[] stations = toArray();
+        Object[] newStations = new Object[mSize - 1];
+        System.arraycopy(stations, 0, newStations, 0, position);
+        System.arraycopy(stations, position + 1, newStations, position, mSize - position - 1);
+        return new StationList(newStations);
+    }
+
+
+    /* Returns list sorted by given comparator - this list, if it is sorted already */
+    public StationList sorted(Comparator<Station> comparator) {
+        boolean sorted = true;
+        for (int i = 1; i < mSize && sorted; i++) {
+            sorted = comparator.compare(get(i - 1), get(i)) <= 0;
+        }
+        if (sorted) {
+            return this;
+        }
+        Station[] stations = toArray(new Station[mSize]);
+        Arrays.sort(stations, comparator);
+        return new StationList(stations);
+    }
+
+
+    /* Finds station with given stream address - null if there is none */
+    public Station findStation(Uri streamUri) {
+        int stationId = findStationId(streamUri);
+        return stationId != -1 ? get(stationId) : null;
+    }
+
+
+    /* Finds position of station with given stream address - -1 if there is none */
+    public int findStationId(Uri streamUri) {
+        if (streamUri == null) {
+            return -1;
+        }
+        return unbox(getIndex().mStreamUriIndex.get(normalizeStreamUri(streamUri)));
+    }
+
+
+    /* Finds position of station with given stable id - -1 if there is none */
+    public int findStationIdByStableId(long stableId) {
+        return unbox(getIndex().mStableIdIndex.get(stableId));
+    }
+
+
+    /* Finds position of station with given playlist file - -1 if there is none */
+    public int findStationId(File playlistFile) {
+        if (playlistFile == null) {
+            return -1;
+        }
+        return unbox(getIndex().mPlaylistFileIndex.get(playlistFile));
+    }
+
+
+    /* Creates key for stream address - scheme and host are case-insensitive, default port and trailing slash are ignored */
+    public static String normalizeStreamUri(Uri streamUri) {
+        String scheme = streamUri.getScheme();
+        String host = streamUri.getHost();
+        if (scheme == null || host == null) {
+            return streamUri.toString();
+        }
+        scheme = scheme.toLowerCase(Locale.ENGLISH);
+
+        StringBuilder key = new StringBuilder(streamUri.toString().length());
+        key.append(scheme).append("://");
+        if (streamUri.getEncodedUserInfo() != null) {
+            key.append(streamUri.getEncodedUserInfo()).append('@');
+        }
+        key.append(host.toLowerCase(Locale.ENGLISH));
+        int port = streamUri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            key.append(':').append(port);
+        }
+        String path = streamUri.getEncodedPath();
+        if (path != null) {
+            int length = path.length();
+            while (length > 0 && path.charAt(length - 1) == '/') {
+                length--;
+            }
+            key.append(path, 0, length);
+        }
+        if (streamUri.getEncodedQuery() != null) {
+            key.append('?').append(streamUri.getEncodedQuery());
+        }
+        return key.toString();
+    }
+
+
+    /* Returns indexes of this list - builds them on first use */
+    private Index getIndex() {
+        Index index = mIndex;
+        if (index == null) {
+            index = new Index(this);
+            mIndex = index;
+        }
+        return index;
+    }
+
+
+    /* Copies nodes on the path to given position and puts station there - missing nodes are created */
+    private static Object[] copyPath(int level, Object[] node, int position, Station station) {
+        Object[] copy = node != null ? node.clone() : new Object[WIDTH];
+        if (level == 0) {
+            copy[position & MASK] = station;
+        } else {
+            int slot = (position >>> level) & MASK;
+            copy[slot] = copyPath(level - BITS, (Object[]) copy[slot], position, station);
+        }
+        return copy;
+    }
+
+
+    /* Groups given items into nodes of 32 slots */
+    private static Object[] createNodes(Object[] items) {
+        Object[] nodes = new Object[(items.length + MASK) >>> BITS];
+        for (int n = 0; n < nodes.length; n++) {
+            Object[] node = new Object[WIDTH];
+            int start = n << BITS;
+            System.arraycopy(items, start, node, 0, Math.min(WIDTH, items.length - start));
+            nodes[n] = node;
+        }
+        return nodes;
+    }
+
+
+    /* Checks if two stations are found under the same keys */
+    private static boolean hasSameKeys(Station station1, Station station2) {
+        Uri streamUri1 = station1.getStreamUri();
+        Uri streamUri2 = station2.getStreamUri();
+        File playlistFile1 = station1.getStationPlaylistFile();
+        File playlistFile2 = station2.getStationPlaylistFile();
+        boolean sameStream = streamUri1 == null ? streamUri2 == null : streamUri2 != null && streamUri1.equals(streamUri2);
+        boolean samePlaylistFile = playlistFile1 == null ? playlistFile2 == null : playlistFile1.equals(playlistFile2);
+        return sameStream && samePlaylistFile;
+    }
+
+
+    /* Converts indexed position - -1 if there is none */
+    private static int unbox(Integer position) {
+        return position != null ? position : -1;
+    }
+
+
+    /**
+     * Inner class: Hash indexes of a list - never changed once handed to a list, so versions of a list can share them
+     */
+    private static final class Index {
+
+        /* Main class variables */
+        private final HashMap<String, Integer> mStreamUriIndex;
+        private final HashMap<Long, Integer> mStableIdIndex;
+        private final HashMap<File, Integer> mPlaylistFileIndex;
+
+        /* Constructor - the first of several stations with the same key wins */
+        private Index(StationList stationList) {
+            int capacity = stationList.size() * 2;
+            mStreamUriIndex = new HashMap<String, Integer>(capacity);
+            mStableIdIndex = new HashMap<Long, Integer>(capacity);
+            mPlaylistFileIndex = new HashMap<File, Integer>(capacity);
+            for (int i = 0; i < stationList.size(); i++) {
+                putKeys(stationList.get(i), i);
+            }
+        }
+
+        /* Constructor - copies given indexes and adds keys of stations appended from given position on */
+        private Index(Index index, List<Station> stations, int position) {
+            mStreamUriIndex = new HashMap<String, Integer>(index.mStreamUriIndex);
+            mStableIdIndex = new HashMap<Long, Integer>(index.mStableIdIndex);
+            mPlaylistFileIndex = new HashMap<File, Integer>(index.mPlaylistFileIndex);
+            for (int i = 0; i < stations.size(); i++) {
+                putKeys(stations.get(i), position + i);
+            }
+        }
+
+        /* Adds keys of given station - keys that are taken already keep their position */
+        private void putKeys(Station station, int position) {
+            if (station.getStreamUri() != null) {
+                String streamUriKey = normalizeStreamUri(station.getStreamUri());
+                if (!mStreamUriIndex.containsKey(streamUriKey)) {
+                    mStreamUriIndex.put(streamUriKey, position);
+                }
+                long stableId = station.getStableId();
+                if (!mStableIdIndex.containsKey(stableId)) {
+                    mStableIdIndex.put(stableId, position);
+                }
+            }
+            File playlistFile = station.getStationPlaylistFile();
+            if (playlistFile != null && !mPlaylistFileIndex.containsKey(playlistFile)) {
+                mPlaylistFileIndex.put(playlistFile, position);
+            }
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -0,0 +1,162 @@
+/**
+ * StationReference.java
+ * Implements the StationReference class
+ * A StationReference points to a station when it is handed over in an intent
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.core;
+
+import android.net.Uri;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.y20k.transistor.helpers.TransistorKeys;
+
+import java.io.File;
+
+
+/**
+ * StationReference class
+ * Carries only what is needed to find a station again: stable id, name, stream address and image.
+ * The receiver looks up the full station in its list. The parcel carries the length of its fields,
+ * so a reader skips fields appended by a newer version - also when the reference sits in a Bundle.
+ */
+public final class StationReference implements TransistorKeys, Parcelable {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StationReference.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int VERSION = 1;
+
+
+    /* Main class variables */
+    private final long mStableId;
+    private final String mStationName;
+    private final String mStreamUri;
+    private final String mImageKey;
+
+
+    /* Constructor */
+    public StationReference(Station station) {
+        mStableId = station.getStableId();
+        mStationName = station.getStationName();
+        mStreamUri = station.getStreamUri() != null ? station.getStreamUri().toString() : null;
+        mImageKey = station.getStationImageFile() != null ? station.getStationImageFile().getPath() : null;
+    }
+
+
+    /* Constructor used by CREATOR */
+    private StationReference(Parcel in) {
+        int version = in.readInt();
+        int length = in.readInt();
+        int start = in.dataPosition();
+        mStableId = in.readLong();
+        mStationName = in.readString();
+        mStreamUri = in.readString();
+        mImageKey = in.readString();
+        // fields added by versions after VERSION would be read here - if (version >= 2) ...
+        // skip fields this version does not know
+        in.setDataPosition(start + length);
+    }
+
+
+    /* CREATOR for StationReference object used to do parcel related operations */
+    public static final Creator<StationReference> CREATOR = new Creator<StationReference>() {
+        @Override
+        public StationReference createFromParcel(Parcel in) {
+            return new StationReference(in);
+        }
+
+        @Override
+        public StationReference[] newArray(int size) {
+            return new StationReference[size];
+        }
+    };
+
+
+    /* Finds referenced station in given list - null if list is missing or station has been removed */
+    public Station resolve(StationList stationList) {
+        if (stationList == null) {
+            return null;
+        }
+        int stationId = stationList.findStationIdByStableId(mStableId);
+        if (stationId == -1 && mStreamUri != null) {
+            stationId = stationList.findStationId(Uri.parse(mStreamUri));
+        }
+        return stationId != -1 ? stationList.get(stationId) : null;
+    }
+
+
+    /* Creates a bare station from this reference - used if the full station cannot be found */
+    public Station toStation() {
+        File imageFile = mImageKey != null ? new File(mImageKey) : null;
+        long imageSize = imageFile != null ? imageFile.length() : 0;
+        Uri streamUri = mStreamUri != null ? Uri.parse(mStreamUri) : null;
+        return new Station(imageFile, imageSize, mStationName, null, streamUri, null, PLAYBACK_STATE_STOPPED, false, "", "", 0, 0, 0, null);
+    }
+
+
+    /* Getter for stable id of station */
+    public long getStableId() {
+        return mStableId;
+    }
+
+
+    /* Getter for name of station */
+    public String getStationName() {
+        return mStationName;
+    }
+
+
+    /* Getter for stream address of station */
+    public Uri getStreamUri() {
+        return mStreamUri != null ? Uri.parse(mStreamUri) : null;
+    }
+
+
+    /* Getter for image of station - path of image file */
+    public String getImageKey() {
+        return mImageKey;
+    }
+
+
+    @Override
+    public String toString() {
+        return "StationReference [Name=" + mStationName + ", StreamUri=" + mStreamUri + "]";
+    }
+
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(VERSION);
+        // reserve room for length of fields - filled in once they are written
+        int lengthPosition = dest.dataPosition();
+        dest.writeInt(0);
+        int start = dest.dataPosition();
+        dest.writeLong(mStableId);
+        dest.writeString(mStationName);
+        dest.writeString(mStreamUri);
+        dest.writeString(mImageKey);
+        int end = dest.dataPosition();
+        dest.setDataPosition(lengthPosition);
+        dest.writeInt(end - start);
+        dest.setDataPosition(end);
+    }
+
+}
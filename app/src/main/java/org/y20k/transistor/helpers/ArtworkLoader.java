@@ -0,0 +1,193 @@
+/**
+ * ArtworkLoader.java
+ * Implements the ArtworkLoader class
+ * An ArtworkLoader renders station images in background and puts them into image views
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.TransitionDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.ImageView;
+
+import org.y20k.transistor.R;
+import org.y20k.transistor.core.Station;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * ArtworkLoader class
+ * Cached images are set right away. Everything else shows a placeholder first and fades in, once it
+ * has been rendered. A view that is recycled or bound to another station drops its request - requests
+ * of several views for the same image share one rendering. All methods must be called on main thread.
+ */
+public final class ArtworkLoader {
+
+    /* Define log tag */
+    private static final String LOG_TAG = ArtworkLoader.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int CROSSFADE_DURATION = 150;
+    private static final int MAX_WORKERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+
+    /* Main class variables */
+    private static final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private static final HashMap<String, Job> mJobs = new HashMap<String, Job>();
+    private static final WeakHashMap<ImageView, Job> mTargets = new WeakHashMap<ImageView, Job>();
+
+
+    /* Lets idle executor threads time out */
+    static {
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+
+    /* Puts square image of given station into given view - renders it in background, if it is not cached */
+    public static void load(Context context, Station station, int size, ImageView target) {
+        String key = ImageCache.createKey(station, size);
+
+        // CASE: view is waiting for this image already
+        Job currentJob = mTargets.get(target);
+        if (currentJob != null && currentJob.mKey.equals(key)) {
+            return;
+        }
+        cancel(target);
+
+        // CASE: image is cached
+        Bitmap bitmap = ImageCache.get(key);
+        if (bitmap != null) {
+            target.setImageBitmap(bitmap);
+            return;
+        }
+
+        // CASE: image needs to be rendered - show placeholder meanwhile
+        target.setImageDrawable(new ColorDrawable(context.getResources().getColor(R.color.station_image_background)));
+        Job job = mJobs.get(key);
+        if (job == null) {
+            job = new Job(key, context.getApplicationContext(), station, size);
+            mJobs.put(key, job);
+            job.mFuture = mExecutor.submit(job);
+        }
+        job.mTargets.add(target);
+        mTargets.put(target, job);
+    }
+
+
+    /* Drops pending request of given view - rendering stops, if no other view waits for the image */
+    public static void cancel(ImageView target) {
+        Job job = mTargets.remove(target);
+        if (job == null) {
+            return;
+        }
+        job.mTargets.remove(target);
+        if (job.mTargets.isEmpty()) {
+            job.mFuture.cancel(false);
+            mJobs.remove(job.mKey);
+        }
+    }
+
+
+    /* Hands rendered image to waiting views - runs on main thread */
+    private static void deliver(Job job, Bitmap bitmap) {
+        if (mJobs.get(job.mKey) != job) {
+            // job has been cancelled in the meantime
+            return;
+        }
+        mJobs.remove(job.mKey);
+        if (bitmap == null) {
+            return;
+        }
+        ImageCache.put(job.mKey, bitmap);
+        for (ImageView target : job.mTargets) {
+            if (mTargets.get(target) == job) {
+                mTargets.remove(target);
+                crossfade(target, bitmap);
+            }
+        }
+    }
+
+
+    /* Fades from placeholder to given image */
+    private static void crossfade(ImageView target, Bitmap bitmap) {
+        Drawable placeholder = target.getDrawable();
+        if (placeholder == null) {
+            target.setImageBitmap(bitmap);
+            return;
+        }
+        TransitionDrawable transition = new TransitionDrawable(new Drawable[] {placeholder, new BitmapDrawable(target.getResources(), bitmap)});
+        transition.setCrossFadeEnabled(true);
+        target.setImageDrawable(transition);
+        transition.startTransition(CROSSFADE_DURATION);
+    }
+
+
+    /**
+     * Inner class: Rendering of one image, shared by all views that wait for it
+     */
+    private static final class Job implements Runnable {
+
+        /* Main class variables */
+        private final String mKey;
+        private final Context mContext;
+        private final Station mStation;
+        private final int mSize;
+        private final ArrayList<ImageView> mTargets;
+        private Future<?> mFuture;
+
+        /* Constructor */
+        private Job(String key, Context context, Station station, int size) {
+            mKey = key;
+            mContext = context;
+            mStation = station;
+            mSize = size;
+            mTargets = new ArrayList<ImageView>(1);
+        }
+
+        @Override
+        public void run() {
+            Bitmap bitmap = null;
+            try {
+                ImageHelper imageHelper = new ImageHelper(mStation, mContext);
+                bitmap = imageHelper.createSquareImage(mSize, false);
+                imageHelper.release();
+            } catch (RuntimeException e) {
+                LogHelper.w(LOG_TAG, "Unable to render image for " + mStation.getStationName() + ": " + e.toString());
+            }
+            final Bitmap result = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Job.this, result);
+                }
+            });
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -0,0 +1,138 @@
+/**
+ * BitmapPool.java
+ * Implements the BitmapPool class
+ * A BitmapPool keeps bitmaps that are no longer needed, so that decoding and rendering can re-use their memory
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * BitmapPool class
+ * Bitmaps are grouped by allocation size. A request is served by the smallest bitmap that is large
+ * enough, but not more than twice as large. Only bitmaps that nobody else holds on to may be put back -
+ * never a bitmap that is shown in a view or kept in ImageCache.
+ */
+public final class BitmapPool {
+
+    /* Define log tag */
+    private static final String LOG_TAG = BitmapPool.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int MAX_POOL_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_OVERSIZE_FACTOR = 2;
+
+
+    /* Main class variables */
+    private static final TreeMap<Integer, ArrayDeque<Bitmap>> mBuckets = new TreeMap<Integer, ArrayDeque<Bitmap>>();
+    private static int mPoolSize = 0;
+
+
+    /* Returns a cleared bitmap of given size and config - re-used if possible */
+    public static Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = take(width * height * getBytesPerPixel(config));
+        if (bitmap != null) {
+            try {
+                bitmap.reconfigure(width, height, config);
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                LogHelper.w(LOG_TAG, "Unable to re-use bitmap: " + e.toString());
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+
+    /* Prepares given decoding options (with inSampleSize and bounds set) to decode into a re-used bitmap */
+    public static void prepareDecode(BitmapFactory.Options options) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inBitmap = width > 0 && height > 0 ? take(width * height * getBytesPerPixel(config)) : null;
+    }
+
+
+    /* Hands bitmap back to pool - caller must not use it afterwards */
+    public static void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        synchronized (mBuckets) {
+            if (mPoolSize + size > MAX_POOL_SIZE) {
+                // pool is full - leave bitmap to garbage collector
+                return;
+            }
+            ArrayDeque<Bitmap> bucket = mBuckets.get(size);
+            if (bucket == null) {
+                bucket = new ArrayDeque<Bitmap>();
+                mBuckets.put(size, bucket);
+            }
+            bucket.push(bitmap);
+            mPoolSize += size;
+        }
+    }
+
+
+    /* Empties pool when system runs low on memory - call from onTrimMemory */
+    public static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            synchronized (mBuckets) {
+                mBuckets.clear();
+                mPoolSize = 0;
+            }
+        }
+    }
+
+
+    /* Takes smallest bitmap that holds given number of bytes - null if there is none */
+    private static Bitmap take(int byteCount) {
+        synchronized (mBuckets) {
+            Map.Entry<Integer, ArrayDeque<Bitmap>> entry = mBuckets.ceilingEntry(byteCount);
+            if (entry == null || entry.getKey() > byteCount * MAX_OVERSIZE_FACTOR) {
+                return null;
+            }
+            ArrayDeque<Bitmap> bucket = entry.getValue();
+            Bitmap bitmap = bucket.pop();
+            if (bucket.isEmpty()) {
+                mBuckets.remove(entry.getKey());
+            }
+            mPoolSize -= entry.getKey();
+            return bitmap;
+        }
+    }
+
+
+    /* Returns number of bytes a pixel takes in given config */
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else {
+            return 4;
+        }
+    }
+
+}
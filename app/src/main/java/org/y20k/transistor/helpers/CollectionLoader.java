@@ -0,0 +1,249 @@
+/**
+ * CollectionLoader.java
+ * Implements the CollectionLoader class
+ * A CollectionLoader reads the playlist files of the collection folder in parallel
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * CollectionLoader class
+ */
+public final class CollectionLoader implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = CollectionLoader.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int MAX_WORKER_THREADS = 4;
+    private static final int MIN_FILES_FOR_PARALLEL_LOAD = 16;
+    private static final int WORKER_KEEP_ALIVE_SECONDS = 15;
+
+
+    /* Main class variables */
+    private static ThreadPoolExecutor mExecutor;
+
+
+    /* Loads all stations from playlist files in given folder - result is ordered by file name */
+    public static ArrayList<Station> loadStations(File folder) {
+        return loadStations(folder, null);
+    }
+
+
+    /* Loads all stations - only playlist files that changed since given snapshot was taken get parsed */
+    public static ArrayList<Station> loadStations(File folder, File snapshotFile) {
+
+        // PHASE 1: list playlist files and read snapshot
+        long listStart = SystemClock.elapsedRealtime();
+        File[] files = listPlaylistFiles(folder);
+        HashMap<String, CollectionSnapshot.Record> snapshot = snapshotFile != null ? CollectionSnapshot.read(snapshotFile, folder) : new HashMap<String, CollectionSnapshot.Record>();
+        boolean snapshotChanged = snapshotFile != null && snapshot.size() != files.length;
+
+        // validate snapshot records by modification date and size - collect files that need parsing
+        CollectionSnapshot.Record[] records = new CollectionSnapshot.Record[files.length];
+        int[] changedIndices = new int[files.length];
+        int changedCount = 0;
+        for (int i = 0; i < files.length; i++) {
+            CollectionSnapshot.Record record = snapshot.get(files[i].getName());
+            if (record != null && record.matches(files[i])) {
+                records[i] = record;
+                if (record.refreshImage(folder)) {
+                    snapshotChanged = true;
+                }
+            } else {
+                changedIndices[changedCount++] = i;
+            }
+        }
+        File[] changedFiles = new File[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            changedFiles[i] = files[changedIndices[i]];
+        }
+
+        // PHASE 2: parse changed playlist files
+        long parseStart = SystemClock.elapsedRealtime();
+        Station[] parsedStations = parseStations(changedFiles);
+
+        // PHASE 3: merge results - order is defined by the sorted file list, not by thread timing
+        long mergeStart = SystemClock.elapsedRealtime();
+        Station[] results = new Station[files.length];
+        for (int i = 0; i < changedCount; i++) {
+            int index = changedIndices[i];
+            Station station = parsedStations[i];
+            results[index] = station;
+            if (station != null && station.getStreamUri() != null) {
+                records[index] = CollectionSnapshot.Record.fromStation(station, files[index]);
+            }
+            snapshotChanged = true;
+        }
+        ArrayList<Station> stationList = new ArrayList<Station>(files.length);
+        ArrayList<CollectionSnapshot.Record> validRecords = new ArrayList<CollectionSnapshot.Record>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            Station station = results[i];
+            if (station == null && records[i] != null) {
+                station = records[i].toStation(folder);
+            }
+            if (station != null && station.getStreamUri() != null) {
+                stationList.add(station);
+                validRecords.add(records[i]);
+            }
+        }
+
+        // rewrite snapshot, if anything has changed
+        if (snapshotFile != null && snapshotChanged) {
+            CollectionSnapshot.write(snapshotFile, folder, validRecords);
+        }
+        long mergeEnd = SystemClock.elapsedRealtime();
+
+        LogHelper.v(LOG_TAG, "Loaded " + stationList.size() + " stations from " + files.length + " files (" + changedCount + " parsed). Timings: list=" + (parseStart - listStart) + "ms, parse=" + (mergeStart - parseStart) + "ms, merge=" + (mergeEnd - mergeStart) + "ms, workers=" + getWorkerCount(changedCount));
+        return stationList;
+    }
+
+
+    /* Lists playlist files of given folder, sorted by name */
+    public static File[] listPlaylistFiles(File folder) {
+        File[] listOfFiles = folder.listFiles();
+        if (listOfFiles == null) {
+            return new File[0];
+        }
+        int count = 0;
+        for (File file : listOfFiles) {
+            if (file.isFile() && file.getName().endsWith(".m3u")) {
+                listOfFiles[count++] = file;
+            }
+        }
+        File[] playlistFiles = Arrays.copyOf(listOfFiles, count);
+        Arrays.sort(playlistFiles);
+        return playlistFiles;
+    }
+
+
+    /* Parses given playlist files - result array is aligned with given files (null = failed) */
+    public static Station[] parseStations(final File[] files) {
+        final Station[] results = new Station[files.length];
+        int workerCount = getWorkerCount(files.length);
+
+        // small collection: not worth the thread hand-off
+        if (workerCount == 0) {
+            for (int i = 0; i < files.length; i++) {
+                results[i] = parseStation(files[i]);
+            }
+            return results;
+        }
+
+        // workers and calling thread pull file indices from a shared counter - whoever is idle takes the next file
+        final AtomicInteger nextIndex = new AtomicInteger(0);
+        final CountDownLatch finished = new CountDownLatch(workerCount);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    parseUntilDone(files, results, nextIndex);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+        ThreadPoolExecutor executor = getExecutor();
+        for (int i = 0; i < workerCount; i++) {
+            executor.execute(worker);
+        }
+        parseUntilDone(files, results, nextIndex);
+
+        // wait for files still being parsed by the workers
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+
+    /* Parses files until the shared counter runs past the end of the list */
+    private static void parseUntilDone(File[] files, Station[] results, AtomicInteger nextIndex) {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < files.length) {
+            results[index] = parseStation(files[index]);
+        }
+    }
+
+
+    /* Creates station from given file - returns null if file could not be parsed */
+    private static Station parseStation(File file) {
+        try {
+            return new Station(file);
+        } catch (RuntimeException e) {
+            LogHelper.e(LOG_TAG, "Unable to load station from " + file.getName() + ": " + e.toString());
+            return null;
+        }
+    }
+
+
+    /* Determines number of background workers for given number of files */
+    private static int getWorkerCount(int fileCount) {
+        if (fileCount < MIN_FILES_FOR_PARALLEL_LOAD) {
+            return 0;
+        }
+        // calling thread also parses - leave it one core
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(0, Math.min(MAX_WORKER_THREADS, cores - 1));
+    }
+
+
+    /* Returns bounded executor - threads time out when collection is not being loaded */
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (mExecutor == null) {
+            mExecutor = new ThreadPoolExecutor(MAX_WORKER_THREADS, MAX_WORKER_THREADS, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger mThreadCount = new AtomicInteger(1);
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "CollectionLoader #" + mThreadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            mExecutor.allowCoreThreadTimeOut(true);
+        }
+        return mExecutor;
+    }
+
+}
@@ -0,0 +1,267 @@
+/**
+ * CollectionSnapshot.java
+ * Implements the CollectionSnapshot class
+ * A CollectionSnapshot is a compact binary cache of the parsed collection folder
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+
+
+/**
+ * CollectionSnapshot class
+ * The m3u files in the collection folder stay the source of truth - the snapshot only saves re-parsing them.
+ * File layout: header (magic, version, folder, count), records, trailer (magic)
+ */
+public final class CollectionSnapshot implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = CollectionSnapshot.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String SNAPSHOT_FILE_NAME = "collection.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x5452534e; // "TRSN"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+
+    /* Returns location of snapshot file */
+    public static File getSnapshotFile(Context context) {
+        return new File(context.getCacheDir(), SNAPSHOT_FILE_NAME);
+    }
+
+
+    /* Reads snapshot for given folder - returns records keyed by playlist file name (empty if snapshot is missing or invalid) */
+    public static HashMap<String, Record> read(File snapshotFile, File folder) {
+        HashMap<String, Record> records = new HashMap<String, Record>();
+        if (snapshotFile == null || !snapshotFile.exists()) {
+            return records;
+        }
+
+        try (FileInputStream inputStream = new FileInputStream(snapshotFile)) {
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // header
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                LogHelper.w(LOG_TAG, "Discarding snapshot: unknown format.");
+                return records;
+            }
+            if (!folder.getAbsolutePath().equals(readString(buffer))) {
+                LogHelper.v(LOG_TAG, "Discarding snapshot: collection folder has changed.");
+                return records;
+            }
+            int count = buffer.getInt();
+
+            // records
+            for (int i = 0; i < count; i++) {
+                Record record = new Record();
+                record.playlistFileName = readString(buffer);
+                record.playlistLastModified = buffer.getLong();
+                record.playlistSize = buffer.getLong();
+                record.stationName = readString(buffer);
+                record.streamUri = readString(buffer);
+                record.imageFileName = readString(buffer);
+                record.imageLastModified = buffer.getLong();
+                record.imageSize = buffer.getLong();
+                record.stableId = buffer.getLong();
+                record.bufferProfile = buffer.getInt();
+                if (record.bufferProfile < 0 || record.bufferProfile >= BUFFER_PROFILE_KEYS.length) {
+                    throw new IllegalStateException("Invalid buffer profile " + record.bufferProfile);
+                }
+                records.put(record.playlistFileName, record);
+            }
+
+            // trailer - guards against truncated files
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                LogHelper.w(LOG_TAG, "Discarding snapshot: trailer missing.");
+                records.clear();
+            }
+
+        } catch (IOException | RuntimeException e) {
+            // RuntimeException covers BufferUnderflowException for damaged files
+            LogHelper.w(LOG_TAG, "Discarding snapshot: " + e.toString());
+            records.clear();
+        }
+        return records;
+    }
+
+
+    /* Writes snapshot atomically: to a temporary file first, then renamed over the old snapshot */
+    public static synchronized boolean write(File snapshotFile, File folder, List<Record> records) {
+        File temporaryFile = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            writeString(out, folder.getAbsolutePath());
+            out.writeInt(records.size());
+            for (Record record : records) {
+                writeString(out, record.playlistFileName);
+                out.writeLong(record.playlistLastModified);
+                out.writeLong(record.playlistSize);
+                writeString(out, record.stationName);
+                writeString(out, record.streamUri);
+                writeString(out, record.imageFileName);
+                out.writeLong(record.imageLastModified);
+                out.writeLong(record.imageSize);
+                out.writeLong(record.stableId);
+                out.writeInt(record.bufferProfile);
+            }
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.flush();
+            fileOutputStream.getFD().sync();
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to write snapshot: " + e.toString());
+            temporaryFile.delete();
+            return false;
+        }
+
+        if (!temporaryFile.renameTo(snapshotFile)) {
+            LogHelper.e(LOG_TAG, "Unable to replace snapshot file.");
+            temporaryFile.delete();
+            return false;
+        }
+        LogHelper.v(LOG_TAG, "Snapshot written. Records: " + records.size());
+        return true;
+    }
+
+
+    /* Deletes snapshot - next load re-parses all playlist files */
+    public static void delete(Context context) {
+        File snapshotFile = getSnapshotFile(context);
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            LogHelper.w(LOG_TAG, "Unable to delete snapshot.");
+        }
+    }
+
+
+    /* Reads a length-prefixed UTF-8 string - length -1 means null */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        } else if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IllegalStateException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+
+    /* Writes a length-prefixed UTF-8 string */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * Inner class: One playlist file of the collection
+     */
+    public static final class Record {
+
+        /* Main class variables */
+        String playlistFileName;
+        long playlistLastModified;
+        long playlistSize;
+        String stationName;
+        String streamUri;
+        String imageFileName;
+        long imageLastModified;
+        long imageSize;
+        long stableId;
+        int bufferProfile;
+
+
+        /* Creates record from a freshly parsed station */
+        public static Record fromStation(Station station, File playlistFile) {
+            Record record = new Record();
+            record.playlistFileName = playlistFile.getName();
+            record.playlistLastModified = playlistFile.lastModified();
+            record.playlistSize = playlistFile.length();
+            record.stationName = station.getStationName();
+            record.streamUri = station.getStreamUri().toString();
+            File imageFile = station.getStationImageFile();
+            if (imageFile != null) {
+                record.imageFileName = imageFile.getName();
+                record.imageLastModified = station.getStationImageLastModified();
+                record.imageSize = station.getStationImageSize();
+            }
+            record.stableId = station.getStableId();
+            record.bufferProfile = station.getBufferProfile();
+            return record;
+        }
+
+
+        /* Checks if given playlist file is unchanged since snapshot was taken */
+        public boolean matches(File playlistFile) {
+            return playlistFile.lastModified() == playlistLastModified && playlistFile.length() == playlistSize;
+        }
+
+
+        /* Re-reads size and modification date of image - returns true if image has changed */
+        public boolean refreshImage(File folder) {
+            if (imageFileName == null) {
+                return false;
+            }
+            File imageFile = new File(folder, imageFileName);
+            long lastModified = imageFile.lastModified();
+            long size = imageFile.length();
+            if (lastModified == imageLastModified && size == imageSize) {
+                return false;
+            }
+            imageLastModified = lastModified;
+            imageSize = size;
+            return true;
+        }
+
+
+        /* Creates station from record - no file access */
+        public Station toStation(File folder) {
+            File imageFile = imageFileName != null ? new File(folder, imageFileName) : null;
+            Station station = new Station(imageFile, imageSize, stationName, new File(folder, playlistFileName), Uri.parse(streamUri), null, PLAYBACK_STATE_STOPPED, false, "", "", -1, -1, -1, new Bundle());
+            station.setBufferProfile(bufferProfile);
+            station.setStationImageLastModified(imageLastModified);
+            return station;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -0,0 +1,229 @@
+/**
+ * CollectionWatcher.java
+ * Implements the CollectionWatcher class
+ * A CollectionWatcher observes the collection folder and reports changed playlist and image files
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.os.FileObserver;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ * CollectionWatcher class
+ * Only one FileObserver per process watches the folder - older Android versions
+ * do not support multiple observers on the same path
+ */
+public final class CollectionWatcher implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = CollectionWatcher.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int WATCHED_EVENTS = FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO | FileObserver.MOVED_FROM | FileObserver.DELETE | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+    private static final long DEBOUNCE_DELAY = 500L;
+
+
+    /* Main class variables */
+    private static CollectionWatcher mInstance;
+    private final File mFolder;
+    private final FileObserver mFileObserver;
+    private final HandlerThread mWorkerThread;
+    private final Handler mWorkerHandler;
+    private final Handler mMainHandler;
+    private final CopyOnWriteArrayList<Listener> mListeners;
+    private final LinkedHashSet<String> mPendingFileNames;
+
+
+    /* Listener for changes in collection folder - called on main thread */
+    public interface Listener {
+        void onCollectionChanged(Delta delta);
+    }
+
+
+    /* Starts watching the collection folder for given listener */
+    public static synchronized void register(Context context, Listener listener) {
+        File folder = StorageHelper.getCollectionDirectory(context);
+        if (mInstance != null && !mInstance.mFolder.equals(folder)) {
+            // collection folder has moved - e.g. sd card was removed
+            mInstance.stop();
+            mInstance = null;
+        }
+        if (mInstance == null) {
+            mInstance = new CollectionWatcher(folder);
+            mInstance.start();
+        }
+        mInstance.mListeners.addIfAbsent(listener);
+    }
+
+
+    /* Stops delivering changes to given listener - stops watching if no listener is left */
+    public static synchronized void unregister(Listener listener) {
+        if (mInstance == null) {
+            return;
+        }
+        mInstance.mListeners.remove(listener);
+        if (mInstance.mListeners.isEmpty()) {
+            mInstance.stop();
+            mInstance = null;
+        }
+    }
+
+
+    /* Constructor */
+    private CollectionWatcher(File folder) {
+        mFolder = folder;
+        mListeners = new CopyOnWriteArrayList<Listener>();
+        mPendingFileNames = new LinkedHashSet<String>();
+        mMainHandler = new Handler(Looper.getMainLooper());
+        mWorkerThread = new HandlerThread(LOG_TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        mWorkerThread.start();
+        mWorkerHandler = new Handler(mWorkerThread.getLooper());
+        mFileObserver = new FileObserver(folder.getPath(), WATCHED_EVENTS) {
+            @Override
+            public void onEvent(int event, String path) {
+                handleEvent(event & FileObserver.ALL_EVENTS, path);
+            }
+        };
+    }
+
+
+    /* Starts observing the folder */
+    private void start() {
+        LogHelper.v(LOG_TAG, "Start watching " + mFolder.toString());
+        mFileObserver.startWatching();
+    }
+
+
+    /* Stops observing the folder and the worker thread */
+    private void stop() {
+        LogHelper.v(LOG_TAG, "Stop watching " + mFolder.toString());
+        mFileObserver.stopWatching();
+        mWorkerHandler.removeCallbacksAndMessages(null);
+        mWorkerThread.quit();
+    }
+
+
+    /* Collects names of changed files - runs on FileObserver thread */
+    private void handleEvent(int event, String fileName) {
+        if ((event & (FileObserver.DELETE_SELF | FileObserver.MOVE_SELF)) != 0) {
+            LogHelper.w(LOG_TAG, "Collection folder has been removed or moved.");
+            return;
+        }
+        if (fileName == null || !(fileName.endsWith(".m3u") || fileName.endsWith(".png"))) {
+            return;
+        }
+        synchronized (mPendingFileNames) {
+            mPendingFileNames.add(fileName);
+        }
+        // restart debounce timer - bulk operations (sync tools, renames) end up in one delta
+        mWorkerHandler.removeCallbacks(mFlushRunnable);
+        mWorkerHandler.postDelayed(mFlushRunnable, DEBOUNCE_DELAY);
+    }
+
+
+    /* Turns collected file names into a delta - runs on worker thread */
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            String[] fileNames;
+            synchronized (mPendingFileNames) {
+                fileNames = mPendingFileNames.toArray(new String[mPendingFileNames.size()]);
+                mPendingFileNames.clear();
+            }
+
+            final Delta delta = new Delta();
+            for (String fileName : fileNames) {
+                File file = new File(mFolder, fileName);
+                if (fileName.endsWith(".png")) {
+                    delta.mChangedImageFiles.add(file);
+                } else if (file.exists()) {
+                    Station station = new Station(file);
+                    if (station.getStreamUri() != null) {
+                        delta.mUpdatedStations.add(station);
+                    } else {
+                        // file does not contain a valid stream (anymore)
+                        delta.mRemovedPlaylistFiles.add(file);
+                    }
+                } else {
+                    delta.mRemovedPlaylistFiles.add(file);
+                }
+            }
+
+            if (delta.isEmpty()) {
+                return;
+            }
+            LogHelper.v(LOG_TAG, "Collection changed: " + delta.toString());
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    for (Listener listener : mListeners) {
+                        listener.onCollectionChanged(delta);
+                    }
+                }
+            });
+        }
+    };
+
+
+    /**
+     * Inner class: Changes found in the collection folder
+     */
+    public static final class Delta {
+
+        /* Main class variables */
+        private final ArrayList<Station> mUpdatedStations = new ArrayList<Station>();
+        private final ArrayList<File> mRemovedPlaylistFiles = new ArrayList<File>();
+        private final ArrayList<File> mChangedImageFiles = new ArrayList<File>();
+
+        /* Getter for stations that were added or changed */
+        public ArrayList<Station> getUpdatedStations() {
+            return mUpdatedStations;
+        }
+
+        /* Getter for playlist files that were removed */
+        public ArrayList<File> getRemovedPlaylistFiles() {
+            return mRemovedPlaylistFiles;
+        }
+
+        /* Getter for image files that were added, changed or removed */
+        public ArrayList<File> getChangedImageFiles() {
+            return mChangedImageFiles;
+        }
+
+        /* Checks if delta contains any change */
+        public boolean isEmpty() {
+            return mUpdatedStations.isEmpty() && mRemovedPlaylistFiles.isEmpty() && mChangedImageFiles.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Delta [Updated=" + mUpdatedStations.size() + ", Removed=" + mRemovedPlaylistFiles.size() + ", Images=" + mChangedImageFiles.size() + "]";
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -20,6 +20,7 @@ import android.content.DialogInterface;
 import android.content.res.Resources;
 import android.database.DataSetObserver;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -50,8 +51,8 @@ public final class DialogAddChooseStream implements TransistorKeys {
     private static int mStationSelectionId = 0;
 
 
-    /* Construct and show dialog */
-    public static void show(final Activity activity, final ArrayList<String> stationUrls, final ArrayList<String> stationNames) {
+    /* Construct and show dialog - playlistUri is the location of the playlist, used for importing all streams */
+    public static void show(final Activity activity, final Uri playlistUri, final ArrayList<String> stationUrls, final ArrayList<String> stationNames) {
         // prepare dialog builder
         LayoutInflater inflater = LayoutInflater.from(activity);
         AlertDialog.Builder builder = new AlertDialog.Builder(activity);
@@ -93,6 +94,16 @@ public final class DialogAddChooseStream implements TransistorKeys {
                 stationFetcher.execute();
             }
         });
+        // add import all button
+        builder.setNeutralButton(R.string.dialog_add_station_choose_stream_button_import_all, new DialogInterface.OnClickListener() {
+            // listen for click on import all button
+            public void onClick(DialogInterface arg0, int arg1) {
+                // add every stream of the playlist - not only the ones shown in dropdown
+                StationImporter stationImporter = new StationImporter(activity, StorageHelper.getCollectionDirectory(activity), playlistUri);
+                // run on thread pool - import may take long and must not hold up other tasks
+                stationImporter.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+            }
+        });
         // add cancel button
         builder.setNegativeButton(R.string.dialog_generic_button_cancel, new DialogInterface.OnClickListener() {
             // listen for click on cancel button
@@ -0,0 +1,64 @@
+/**
+ * DialogBufferProfile.java
+ * Implements the DialogBufferProfile class
+ * A DialogBufferProfile lets the user choose how much a station is buffered during playback
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.DialogInterface;
+
+import org.y20k.transistor.MainActivity;
+import org.y20k.transistor.R;
+import org.y20k.transistor.core.Station;
+
+
+/**
+ * DialogBufferProfile class
+ */
+public final class DialogBufferProfile implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = DialogBufferProfile.class.getSimpleName();
+
+
+    /* Construct and show dialog */
+    public static void show(final Activity activity, final Station station) {
+        // prepare dialog builder
+        AlertDialog.Builder builder = new AlertDialog.Builder(activity);
+        builder.setTitle(R.string.dialog_buffer_profile_title);
+
+        // add list of profiles - order matches BUFFER_PROFILE constants
+        String[] profileNames = activity.getResources().getStringArray(R.array.dialog_buffer_profile_names);
+        builder.setSingleChoiceItems(profileNames, station.getBufferProfile(), new DialogInterface.OnClickListener() {
+            // listen for click on profile
+            public void onClick(DialogInterface dialog, int which) {
+                // hand selected profile over to main activity
+                ((MainActivity)activity).handleStationBufferProfileChange(station, which);
+                dialog.dismiss();
+            }
+        });
+
+        // add cancel button
+        builder.setNegativeButton(R.string.dialog_generic_button_cancel, new DialogInterface.OnClickListener() {
+            // listen for click on cancel button
+            public void onClick(DialogInterface arg0, int arg1) {
+                // do nothing
+            }
+        });
+
+        // display buffer profile dialog
+        builder.show();
+    }
+
+}
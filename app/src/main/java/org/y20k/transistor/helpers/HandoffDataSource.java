@@ -0,0 +1,276 @@
+/**
+ * HandoffDataSource.java
+ * Implements the HandoffDataSource class
+ * A HandoffDataSource lets ExoPlayer adopt the connection that was opened to probe a stream
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * HandoffDataSource class
+ * Serves the first request for the parked stream from the parked connection -
+ * every other request is handed to the upstream DataSource
+ */
+public final class HandoffDataSource implements DataSource {
+
+    /* Define log tag */
+    private static final String LOG_TAG = HandoffDataSource.class.getSimpleName();
+
+
+    /* Keys */
+    private static final long MAX_PARKING_TIME = 10000L;
+
+
+    /* Main class variables */
+    private final DataSource mUpstream;
+    private final Factory mFactory;
+    private final ArrayList<TransferListener> mTransferListeners;
+    private DataSource mCurrentDataSource;
+    private HttpURLConnection mConnection;
+    private InputStream mInputStream;
+    private DataSpec mDataSpec;
+    private long mBytesRemaining;
+    private StartupTimer.Session mStartupSession;
+
+
+    /* Constructor */
+    private HandoffDataSource(DataSource upstream, Factory factory) {
+        mUpstream = upstream;
+        mFactory = factory;
+        mTransferListeners = new ArrayList<TransferListener>(1);
+    }
+
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+        mTransferListeners.add(transferListener);
+        mUpstream.addTransferListener(transferListener);
+    }
+
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        // first byte of a playback start - already stamped, if the probe connection has been adopted
+        mStartupSession = StartupTimer.getSession(dataSpec.uri.toString());
+        if (!mFactory.adoptConnection(dataSpec, this)) {
+            // nothing to adopt - use upstream
+            mCurrentDataSource = mUpstream;
+            return mUpstream.open(dataSpec);
+        }
+
+        LogHelper.v(LOG_TAG, "Adopting parked connection for " + dataSpec.uri);
+        mCurrentDataSource = this;
+        mDataSpec = dataSpec;
+        for (TransferListener listener : mTransferListeners) {
+            listener.onTransferInitializing(this, dataSpec, true);
+        }
+        if (mInputStream == null) {
+            try {
+                mInputStream = mConnection.getInputStream();
+            } catch (IOException e) {
+                closeConnection();
+                throw e;
+            }
+        }
+        long contentLength = mConnection.getContentLength();
+        mBytesRemaining = dataSpec.length != C.LENGTH_UNSET ? dataSpec.length : (contentLength >= 0 ? contentLength : C.LENGTH_UNSET);
+        for (TransferListener listener : mTransferListeners) {
+            listener.onTransferStart(this, dataSpec, true);
+        }
+        return mBytesRemaining;
+    }
+
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+        if (mCurrentDataSource != this) {
+            int bytesRead = mUpstream.read(buffer, offset, readLength);
+            markFirstByte(bytesRead);
+            return bytesRead;
+        }
+        if (readLength == 0) {
+            return 0;
+        }
+        if (mBytesRemaining == 0) {
+            return C.RESULT_END_OF_INPUT;
+        }
+        int length = mBytesRemaining == C.LENGTH_UNSET ? readLength : (int) Math.min(readLength, mBytesRemaining);
+        int bytesRead = mInputStream.read(buffer, offset, length);
+        if (bytesRead == -1) {
+            return C.RESULT_END_OF_INPUT;
+        }
+        markFirstByte(bytesRead);
+        if (mBytesRemaining != C.LENGTH_UNSET) {
+            mBytesRemaining -= bytesRead;
+        }
+        for (TransferListener listener : mTransferListeners) {
+            listener.onBytesTransferred(this, mDataSpec, true, bytesRead);
+        }
+        return bytesRead;
+    }
+
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        if (mCurrentDataSource == this) {
+            return Uri.parse(mConnection.getURL().toString());
+        } else if (mCurrentDataSource != null) {
+            return mUpstream.getUri();
+        }
+        return null;
+    }
+
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+        if (mCurrentDataSource == this) {
+            // includes icy-metaint - needed by ExoPlayer to strip ICY metadata from the stream
+            return mConnection.getHeaderFields();
+        } else if (mCurrentDataSource != null) {
+            return mUpstream.getResponseHeaders();
+        }
+        return Collections.emptyMap();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (mCurrentDataSource == this) {
+            closeConnection();
+            for (TransferListener listener : mTransferListeners) {
+                listener.onTransferEnd(this, mDataSpec, true);
+            }
+            mDataSpec = null;
+        } else if (mCurrentDataSource != null) {
+            mUpstream.close();
+        }
+        mCurrentDataSource = null;
+        mStartupSession = null;
+    }
+
+
+    /* Stamps first byte into startup session - only once per opened source */
+    private void markFirstByte(int bytesRead) {
+        if (mStartupSession != null && bytesRead > 0) {
+            mStartupSession.mark(StartupTimer.STAGE_FIRST_BYTE);
+            mStartupSession = null;
+        }
+    }
+
+
+    /* Closes adopted connection */
+    private void closeConnection() {
+        if (mInputStream != null) {
+            try {
+                mInputStream.close();
+            } catch (IOException e) {
+                LogHelper.w(LOG_TAG, "Unable to close input stream: " + e.toString());
+            }
+            mInputStream = null;
+        }
+        if (mConnection != null) {
+            mConnection.disconnect();
+            mConnection = null;
+        }
+    }
+
+
+    /**
+     * Inner class: Creates HandoffDataSources and holds the parked connection
+     */
+    public static final class Factory implements DataSource.Factory {
+
+        /* Main class variables */
+        private final DataSource.Factory mUpstreamFactory;
+        private HttpURLConnection mParkedConnection;
+        private InputStream mParkedInputStream;
+        private Uri mParkedUri;
+        private long mParkingTime;
+
+        /* Constructor */
+        public Factory(DataSource.Factory upstreamFactory) {
+            mUpstreamFactory = upstreamFactory;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new HandoffDataSource(mUpstreamFactory.createDataSource(), this);
+        }
+
+        /* Parks a connected connection - the first request for given uri will read from it */
+        public synchronized void parkConnection(Uri uri, HttpURLConnection connection) {
+            parkConnection(uri, connection, null);
+        }
+
+        /* Parks a connected connection - reading continues from given stream (null = input stream of connection) */
+        public synchronized void parkConnection(Uri uri, HttpURLConnection connection, InputStream inputStream) {
+            releaseConnection();
+            mParkedUri = uri;
+            mParkedConnection = connection;
+            mParkedInputStream = inputStream;
+            mParkingTime = SystemClock.elapsedRealtime();
+        }
+
+        /* Disconnects parked connection, if it was not adopted */
+        public synchronized void releaseConnection() {
+            if (mParkedConnection != null) {
+                mParkedConnection.disconnect();
+                mParkedConnection = null;
+                mParkedInputStream = null;
+                mParkedUri = null;
+            }
+        }
+
+        /* Hands parked connection over to given data source if it matches the request - a connection is handed out only once */
+        private synchronized boolean adoptConnection(DataSpec dataSpec, HandoffDataSource dataSource) {
+            if (mParkedConnection == null) {
+                return false;
+            }
+            boolean matches = dataSpec.uri.equals(mParkedUri) && dataSpec.position == 0 && dataSpec.httpMethod == DataSpec.HTTP_METHOD_GET;
+            boolean fresh = SystemClock.elapsedRealtime() - mParkingTime < MAX_PARKING_TIME;
+            if (!matches || !fresh) {
+                // a connection that was not adopted right away is of no use any more
+                releaseConnection();
+                return false;
+            }
+            dataSource.mConnection = mParkedConnection;
+            dataSource.mInputStream = mParkedInputStream;
+            mParkedConnection = null;
+            mParkedInputStream = null;
+            mParkedUri = null;
+            return true;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -0,0 +1,110 @@
+/**
+ * ImageCache.java
+ * Implements the ImageCache class
+ * An ImageCache keeps rendered station images in memory
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.File;
+
+
+/**
+ * ImageCache class
+ * Keys contain path, modification time and size of the image file plus the size of the rendered image -
+ * a changed image file gets a new key, so stale images are never shown. Cached bitmaps are shared
+ * between views and must not be modified or recycled.
+ */
+public final class ImageCache {
+
+    /* Define log tag */
+    private static final String LOG_TAG = ImageCache.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String DEFAULT_IMAGE_KEY = "default";
+    private static final char KEY_SEPARATOR = '|';
+
+
+    /* Main class variables */
+    private static final LruCache<String, Bitmap> mImages = new LruCache<String, Bitmap>((int) (Runtime.getRuntime().maxMemory() / 8)) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+
+    /* Returns cached image for given key - null if it is not cached */
+    public static Bitmap get(String key) {
+        return mImages.get(key);
+    }
+
+
+    /* Caches image under given key */
+    public static void put(String key, Bitmap bitmap) {
+        if (bitmap != null) {
+            mImages.put(key, bitmap);
+        }
+    }
+
+
+    /* Creates key for image of given station rendered at given size - uses size and modification time known to station, the file is only checked if they are missing */
+    public static String createKey(Station station, int size) {
+        File imageFile = station != null ? station.getStationImageFile() : null;
+        StringBuilder key = new StringBuilder(64);
+        if (imageFile != null && station.getStationImageLastModified() != 0 && station.getStationImageSize() != 0) {
+            key.append(imageFile.getPath()).append(KEY_SEPARATOR)
+                    .append(station.getStationImageLastModified()).append(KEY_SEPARATOR)
+                    .append(station.getStationImageSize()).append(KEY_SEPARATOR);
+        } else if (imageFile != null && imageFile.exists()) {
+            key.append(imageFile.getPath()).append(KEY_SEPARATOR)
+                    .append(imageFile.lastModified()).append(KEY_SEPARATOR)
+                    .append(imageFile.length()).append(KEY_SEPARATOR);
+        } else {
+            key.append(DEFAULT_IMAGE_KEY).append(KEY_SEPARATOR);
+        }
+        return key.append(size).toString();
+    }
+
+
+    /* Removes all cached renderings of given image file - call when image file has been replaced */
+    public static void evict(File imageFile) {
+        if (imageFile == null) {
+            return;
+        }
+        String prefix = imageFile.getPath() + KEY_SEPARATOR;
+        for (String key : mImages.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mImages.remove(key);
+            }
+        }
+    }
+
+
+    /* Shrinks cache when system runs low on memory - call from onTrimMemory */
+    public static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // app is in background - images will be rendered again when needed
+            mImages.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mImages.trimToSize(mImages.size() / 2);
+        }
+        LogHelper.v(LOG_TAG, "Trimmed image cache to " + mImages.size() + " bytes (level " + level + ")");
+    }
+
+}
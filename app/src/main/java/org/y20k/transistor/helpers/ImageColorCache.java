@@ -0,0 +1,220 @@
+/**
+ * ImageColorCache.java
+ * Implements the ImageColorCache class
+ * An ImageColorCache remembers the palette colors of station images across app starts
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * ImageColorCache class
+ * One entry per image file. An entry is valid as long as modification time and size of the file
+ * match - a replaced image gets its colors computed again. Colors are 0 if the palette had no such swatch.
+ */
+public final class ImageColorCache {
+
+    /* Define log tag */
+    private static final String LOG_TAG = ImageColorCache.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String COLOR_CACHE_FILE_NAME = "image_colors.cache";
+    private static final int COLOR_CACHE_MAGIC = 0x54524943; // "TRIC"
+    private static final int COLOR_CACHE_VERSION = 1;
+    private static final int COLOR_CACHE_MAX_ENTRIES = 1024;
+
+
+    /* Main class variables */
+    private static final LinkedHashMap<String, ImageColors> mImageColors = new LinkedHashMap<String, ImageColors>(64, 0.75f, true);
+    private static final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static File mCacheFile;
+    private static boolean mLoaded = false;
+    private static boolean mSavePending = false;
+
+
+    /* Sets up disk store and loads it in background - call from Application.onCreate */
+    public static void initialize(Context context) {
+        synchronized (mImageColors) {
+            mCacheFile = new File(context.getCacheDir(), COLOR_CACHE_FILE_NAME);
+        }
+        mExecutor.allowCoreThreadTimeOut(true);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ensureLoaded();
+            }
+        });
+    }
+
+
+    /* Returns colors of given image file - null if they are not known for the current version of the file */
+    public static ImageColors get(File imageFile) {
+        ensureLoaded();
+        long lastModified = imageFile.lastModified();
+        long length = imageFile.length();
+        synchronized (mImageColors) {
+            ImageColors imageColors = mImageColors.get(imageFile.getPath());
+            if (imageColors != null && imageColors.mLastModified == lastModified && imageColors.mLength == length) {
+                return imageColors;
+            }
+            return null;
+        }
+    }
+
+
+    /* Stores colors of current version of given image file */
+    public static ImageColors put(File imageFile, int vibrantColor, int mutedColor) {
+        ImageColors imageColors = new ImageColors(imageFile.lastModified(), imageFile.length(), vibrantColor, mutedColor);
+        synchronized (mImageColors) {
+            mImageColors.put(imageFile.getPath(), imageColors);
+            Iterator<String> iterator = mImageColors.keySet().iterator();
+            while (mImageColors.size() > COLOR_CACHE_MAX_ENTRIES && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            scheduleSave();
+        }
+        return imageColors;
+    }
+
+
+    /* Loads disk store once */
+    private static void ensureLoaded() {
+        synchronized (mImageColors) {
+            if (mLoaded || mCacheFile == null) {
+                return;
+            }
+            mLoaded = true;
+            if (!mCacheFile.exists()) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mCacheFile)))) {
+                if (in.readInt() != COLOR_CACHE_MAGIC || in.readInt() != COLOR_CACHE_VERSION) {
+                    LogHelper.w(LOG_TAG, "Discarding color cache: unknown format.");
+                    return;
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = in.readUTF();
+                    mImageColors.put(path, new ImageColors(in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+                }
+                LogHelper.v(LOG_TAG, "Color cache loaded. Entries: " + mImageColors.size());
+            } catch (IOException e) {
+                LogHelper.w(LOG_TAG, "Discarding color cache: " + e.toString());
+                mImageColors.clear();
+            }
+        }
+    }
+
+
+    /* Saves disk store in background - multiple changes end up in one write */
+    private static void scheduleSave() {
+        if (mSavePending || mCacheFile == null) {
+            return;
+        }
+        mSavePending = true;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                save();
+            }
+        });
+    }
+
+
+    /* Writes disk store atomically: to a temporary file first, then renamed over the old store */
+    private static void save() {
+        LinkedHashMap<String, ImageColors> imageColors;
+        File cacheFile;
+        synchronized (mImageColors) {
+            mSavePending = false;
+            imageColors = new LinkedHashMap<String, ImageColors>(mImageColors);
+            cacheFile = mCacheFile;
+        }
+        File temporaryFile = new File(cacheFile.getPath() + ".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            out.writeInt(COLOR_CACHE_MAGIC);
+            out.writeInt(COLOR_CACHE_VERSION);
+            out.writeInt(imageColors.size());
+            for (Map.Entry<String, ImageColors> entry : imageColors.entrySet()) {
+                ImageColors colors = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(colors.mLastModified);
+                out.writeLong(colors.mLength);
+                out.writeInt(colors.mVibrantColor);
+                out.writeInt(colors.mMutedColor);
+            }
+            out.flush();
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to write color cache: " + e.toString());
+            temporaryFile.delete();
+            return;
+        }
+        if (!temporaryFile.renameTo(cacheFile)) {
+            LogHelper.e(LOG_TAG, "Unable to replace color cache file.");
+            temporaryFile.delete();
+        }
+    }
+
+
+    /**
+     * Inner class: Palette colors of one version of an image file
+     */
+    public static final class ImageColors {
+
+        /* Main class variables */
+        private final long mLastModified;
+        private final long mLength;
+        private final int mVibrantColor;
+        private final int mMutedColor;
+
+        /* Constructor */
+        private ImageColors(long lastModified, long length, int vibrantColor, int mutedColor) {
+            mLastModified = lastModified;
+            mLength = length;
+            mVibrantColor = vibrantColor;
+            mMutedColor = mutedColor;
+        }
+
+        /* Getter for vibrant color - 0 if image has none */
+        public int getVibrantColor() {
+            return mVibrantColor;
+        }
+
+        /* Getter for muted color - 0 if image has none */
+        public int getMutedColor() {
+            return mMutedColor;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
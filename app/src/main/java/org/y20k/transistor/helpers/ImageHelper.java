@@ -29,12 +29,16 @@ import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 import org.y20k.transistor.R;
 import org.y20k.transistor.core.Station;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
 
 /**
  * ImageHelper class
+ * Each ImageHelper works on its own decoded image and never changes it -
+ * ImageHelpers can be used on several threads at the same time. Decoding and rendering
+ * re-use bitmaps from BitmapPool - call release() once a station image helper is no longer needed.
  */
 public final class ImageHelper {
 
@@ -43,27 +47,48 @@ public final class ImageHelper {
 
 
     /* Main class variables */
-    private static Bitmap mInputImage;
+    private final Bitmap mInputImage;
+    private final File mInputImageFile;
+    private final boolean mInputImagePoolable;
     private final Context mContext;
 
 
     /* Constructor when given a Bitmap */
     public ImageHelper(Station station, Context context) {
         mContext = context;
+        Bitmap inputImage = null;
+        File inputImageFile = null;
         if (station != null && station.getStationImageFile() != null && station.getStationImageFile().exists()) {
             // get station image
-            mInputImage = decodeSampledBitmapFromFile(station.getStationImageFile().toString(), 72, 72);
-        } else {
-            // set default station image
-            mInputImage = getBitmap(R.drawable.ic_music_note_black_36dp);
+            inputImageFile = station.getStationImageFile();
+            inputImage = decodeSampledBitmapFromFile(inputImageFile.toString(), 72, 72);
+        }
+        if (inputImage == null) {
+            // set default station image - also if station image could not be decoded
+            inputImageFile = null;
+            inputImage = getBitmap(R.drawable.ic_music_note_black_36dp);
         }
+        mInputImageFile = inputImageFile;
+        mInputImage = inputImage;
+        mInputImagePoolable = true;
     }
 
 
     /* Constructor when given an Uri */
     public ImageHelper(Uri inputImageUri, Context context) {
         mContext = context;
+        mInputImageFile = null;
         mInputImage = decodeSampledBitmapFromUri(inputImageUri, 72, 72);
+        // input image is handed out via getInputImage
+        mInputImagePoolable = false;
+    }
+
+
+    /* Hands decoded station image back to BitmapPool - ImageHelper must not be used afterwards */
+    public void release() {
+        if (mInputImagePoolable) {
+            BitmapPool.put(mInputImage);
+        }
     }
 
 
@@ -93,23 +118,35 @@ public final class ImageHelper {
     }
 
 
-    /* Extracts color from station icon */
+    /* Extracts color from station icon - palette is generated once per version of the image file */
     public int getStationImageColor() {
 
-        // extract color palette from station image
-        Palette palette = Palette.from(mInputImage).generate();
-        // get muted and vibrant swatches
-        Palette.Swatch vibrantSwatch = palette.getVibrantSwatch();
-        Palette.Swatch mutedSwatch = palette.getMutedSwatch();
+        // look up colors of station image
+        ImageColorCache.ImageColors imageColors = mInputImageFile != null ? ImageColorCache.get(mInputImageFile) : null;
+        int vibrantColor;
+        int mutedColor;
+        if (imageColors != null) {
+            vibrantColor = imageColors.getVibrantColor();
+            mutedColor = imageColors.getMutedColor();
+        } else {
+            // extract color palette from station image
+            Palette palette = Palette.from(mInputImage).generate();
+            // get muted and vibrant swatches
+            Palette.Swatch vibrantSwatch = palette.getVibrantSwatch();
+            Palette.Swatch mutedSwatch = palette.getMutedSwatch();
+            vibrantColor = vibrantSwatch != null ? toOpaqueColor(vibrantSwatch.getRgb()) : 0;
+            mutedColor = mutedSwatch != null ? toOpaqueColor(mutedSwatch.getRgb()) : 0;
+            if (mInputImageFile != null) {
+                ImageColorCache.put(mInputImageFile, vibrantColor, mutedColor);
+            }
+        }
 
-        if (vibrantSwatch != null) {
+        if (vibrantColor != 0) {
             // return vibrant color
-            int rgb = vibrantSwatch.getRgb();
-            return Color.argb(255, Color.red(rgb), Color.green(rgb), Color.blue(rgb));
-        } else if (mutedSwatch != null) {
+            return vibrantColor;
+        } else if (mutedColor != 0) {
             // return muted color
-            int rgb = mutedSwatch.getRgb();
-            return Color.argb(255, Color.red(rgb), Color.green(rgb), Color.blue(rgb));
+            return mutedColor;
         } else {
             // default return
             return mContext.getResources().getColor(R.color.transistor_grey_lighter);
@@ -117,6 +154,12 @@ public final class ImageHelper {
     }
 
 
+    /* Removes transparency from given color */
+    private static int toOpaqueColor(int rgb) {
+        return Color.argb(255, Color.red(rgb), Color.green(rgb), Color.blue(rgb));
+    }
+
+
     /* Creates station image on a square background with the main station image color and option padding for adaptive icons */
     public Bitmap createSquareImage(int size, boolean adaptivePadding) {
 
@@ -127,7 +170,7 @@ public final class ImageHelper {
         background.setStyle(Paint.Style.FILL);
 
         // create empty bitmap and canvas
-        Bitmap outputImage = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Bitmap outputImage = BitmapPool.get(size, size, Bitmap.Config.ARGB_8888);
         Canvas imageCanvas = new Canvas(outputImage);
 
         // draw square background
@@ -149,7 +192,7 @@ public final class ImageHelper {
     private Bitmap composeImages(Bitmap background, int size, int yOffset) {
 
         // compose output image
-        Bitmap outputImage = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Bitmap outputImage = BitmapPool.get(size, size, Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(outputImage);
         canvas.drawBitmap(background, 0, 0, null);
         canvas.drawBitmap(mInputImage, createTransformationMatrix(size, yOffset, true), null);
@@ -208,9 +251,16 @@ public final class ImageHelper {
         // calculate inSampleSize
         options.inSampleSize = calculateSampleParameter(options, reqWidth, reqHeight);
 
-        // decode bitmap with inSampleSize set
+        // decode bitmap with inSampleSize set - into a re-used bitmap, if possible
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeFile(imageFilePath, options);
+        BitmapPool.prepareDecode(options);
+        try {
+            return BitmapFactory.decodeFile(imageFilePath, options);
+        } catch (IllegalArgumentException e) {
+            // re-used bitmap does not fit image - decode into a new one
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(imageFilePath, options);
+        }
     }
 
 
@@ -272,7 +322,7 @@ public final class ImageHelper {
     private Bitmap getBitmap(int resource) {
         VectorDrawableCompat drawable = VectorDrawableCompat.create(mContext.getResources(), resource, null);
         if (drawable != null) {
-            Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
+            Bitmap bitmap = BitmapPool.get(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
             Canvas canvas = new Canvas(bitmap);
             drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
             drawable.draw(canvas);
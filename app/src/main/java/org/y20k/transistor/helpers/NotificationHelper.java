@@ -21,7 +21,6 @@ import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.Bitmap;
 import android.os.Build;
 import android.support.v4.media.session.MediaSessionCompat;
 
@@ -32,6 +31,7 @@ import org.y20k.transistor.MainActivity;
 import org.y20k.transistor.PlayerService;
 import org.y20k.transistor.R;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationReference;
 
 
 /**
@@ -94,7 +94,7 @@ public final class NotificationHelper implements TransistorKeys {
         // explicit intent for notification tap
         Intent tapActionIntent = new Intent(context, MainActivity.class);
         tapActionIntent.setAction(ACTION_SHOW_PLAYER);
-        tapActionIntent.putExtra(EXTRA_STATION, station);
+        tapActionIntent.putExtra(EXTRA_STATION, new StationReference(station));
 
         // explicit intent for stopping playback
         Intent stopActionIntent = new Intent(context, PlayerService.class);
@@ -138,7 +138,7 @@ public final class NotificationHelper implements TransistorKeys {
         builder = new NotificationCompat.Builder(context, NOTIFICATION_CHANNEL_ID_PLAYBACK_CHANNEL);
         builder.setVisibility(NotificationCompat.VISIBILITY_PUBLIC);
         builder.setSmallIcon(R.drawable.ic_notification_app_icon_white_24dp);
-        builder.setLargeIcon(getStationIcon(context, station));
+        builder.setLargeIcon(PlaybackArtwork.getNotificationIcon(context, station));
         builder.setContentTitle(station.getStationName());
         builder.setContentText(station.getMetadata());
         builder.setShowWhen(false);
@@ -156,18 +156,6 @@ public final class NotificationHelper implements TransistorKeys {
     }
 
 
-    /* Get station image for notification's large icon */
-    private static Bitmap getStationIcon(Context context, Station station) {
-        if (station == null) {
-            return null;
-        }
-        // create and return station image icon
-        ImageHelper imageHelper = new ImageHelper(station, context);
-        return imageHelper.createSquareImage(512, false);
-
-    }
-
-
     /* Create a notification channel */
     private static boolean createNotificationChannel(Context context) {
 
@@ -0,0 +1,75 @@
+/**
+ * ParcelTimer.java
+ * Implements the ParcelTimer class
+ * A ParcelTimer measures what handing over a station in an intent costs - full Station vs StationReference
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+
+import org.y20k.transistor.BuildConfig;
+import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationReference;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * ParcelTimer class
+ * Debug builds only: the first station handed over per process is written to a parcel and marshalled
+ * ROUNDS times, once as Station and once as StationReference. Parcel size and average time are logged.
+ */
+public final class ParcelTimer {
+
+    /* Define log tag */
+    private static final String LOG_TAG = ParcelTimer.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int ROUNDS = 100;
+
+
+    /* Main class variables */
+    private static final AtomicBoolean mMeasured = new AtomicBoolean(false);
+
+
+    /* Logs parcel size and marshal time of given station and of a reference to it - once per process, debug builds only */
+    public static void measure(Station station) {
+        if (!BuildConfig.DEBUG || station == null || station.getStationImageFile() == null || station.getStationPlaylistFile() == null) {
+            return;
+        }
+        if (!mMeasured.compareAndSet(false, true)) {
+            return;
+        }
+        log("Station", station);
+        log("StationReference", new StationReference(station));
+    }
+
+
+    /* Marshals given parcelable ROUNDS times and logs size and average time */
+    private static void log(String name, Parcelable parcelable) {
+        int size = 0;
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROUNDS; i++) {
+            Parcel parcel = Parcel.obtain();
+            parcel.writeParcelable(parcelable, 0);
+            size = parcel.marshall().length;
+            parcel.recycle();
+        }
+        long averageTime = (SystemClock.elapsedRealtimeNanos() - start) / ROUNDS;
+        LogHelper.v(LOG_TAG, String.format(Locale.ENGLISH, "%s: %d bytes, %.1f us to write and marshal", name, size, averageTime / 1000f));
+    }
+
+}
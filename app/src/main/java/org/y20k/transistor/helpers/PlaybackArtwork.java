@@ -0,0 +1,92 @@
+/**
+ * PlaybackArtwork.java
+ * Implements the PlaybackArtwork class
+ * A PlaybackArtwork holds the station images shown by notification and MediaSession
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.File;
+
+
+/**
+ * PlaybackArtwork class
+ * Artwork is created once per version of the station image and kept until another station (or a
+ * changed image) needs artwork - metadata updates re-use it. Bitmaps handed out must not be modified.
+ */
+public final class PlaybackArtwork {
+
+    /* Define log tag */
+    private static final String LOG_TAG = PlaybackArtwork.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int NOTIFICATION_ICON_SIZE = 512;
+    private static final int SESSION_ARTWORK_SIZE = 0; // image file as it is
+
+
+    /* Main class variables */
+    private static String mNotificationIconKey;
+    private static Bitmap mNotificationIcon;
+    private static String mSessionArtworkKey;
+    private static Bitmap mSessionArtwork;
+
+
+    /* Returns square station image for notification's large icon - rendered only if station image changed */
+    public static synchronized Bitmap getNotificationIcon(Context context, Station station) {
+        if (station == null) {
+            return null;
+        }
+        String key = ImageCache.createKey(station, NOTIFICATION_ICON_SIZE);
+        if (!key.equals(mNotificationIconKey)) {
+            ImageHelper imageHelper = new ImageHelper(station, context);
+            mNotificationIcon = imageHelper.createSquareImage(NOTIFICATION_ICON_SIZE, false);
+            imageHelper.release();
+            mNotificationIconKey = key;
+            LogHelper.v(LOG_TAG, "Rendered notification icon for " + station.getStationName());
+        }
+        return mNotificationIcon;
+    }
+
+
+    /* Returns station image for MediaSession's album art - decoded only if station image changed */
+    public static synchronized Bitmap getSessionArtwork(Station station) {
+        if (station == null) {
+            return null;
+        }
+        File imageFile = station.getStationImageFile();
+        if (imageFile == null || !imageFile.exists()) {
+            return null;
+        }
+        String key = ImageCache.createKey(station, SESSION_ARTWORK_SIZE);
+        if (!key.equals(mSessionArtworkKey)) {
+            mSessionArtwork = BitmapFactory.decodeFile(imageFile.toString());
+            mSessionArtworkKey = key;
+        }
+        return mSessionArtwork;
+    }
+
+
+    /* Drops artwork - call when playback service goes away */
+    public static synchronized void clear() {
+        mNotificationIconKey = null;
+        mNotificationIcon = null;
+        mSessionArtworkKey = null;
+        mSessionArtwork = null;
+    }
+
+}
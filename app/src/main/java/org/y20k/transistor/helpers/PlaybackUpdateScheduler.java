@@ -0,0 +1,122 @@
+/**
+ * PlaybackUpdateScheduler.java
+ * Implements the PlaybackUpdateScheduler class
+ * A PlaybackUpdateScheduler merges updates of notification and MediaSession and limits their rate
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+
+/**
+ * PlaybackUpdateScheduler class
+ * Scheduled updates are collected and applied together, at most MAX_UPDATES_PER_SECOND times per second.
+ * Updates read the current state when they are applied, so several changes end up in one update.
+ * State transitions the user waits for are flushed right away. All methods must be called on main thread.
+ */
+public final class PlaybackUpdateScheduler implements Runnable {
+
+    /* Define log tag */
+    private static final String LOG_TAG = PlaybackUpdateScheduler.class.getSimpleName();
+
+
+    /* Keys */
+    public static final int UPDATE_NOTIFICATION = 1;
+    public static final int UPDATE_SESSION_METADATA = 2;
+    private static final int MAX_UPDATES_PER_SECOND = 2;
+    private static final long MIN_UPDATE_INTERVAL = 1000 / MAX_UPDATES_PER_SECOND;
+
+
+    /* Interface for the component that applies updates */
+    public interface UpdateTarget {
+        void applyUpdates(int updates);
+    }
+
+
+    /* Main class variables */
+    private final Handler mHandler;
+    private final UpdateTarget mUpdateTarget;
+    private int mPendingUpdates;
+    private boolean mPosted;
+    private long mLastUpdateTime;
+
+
+    /* Constructor */
+    public PlaybackUpdateScheduler(UpdateTarget updateTarget) {
+        mHandler = new Handler(Looper.getMainLooper());
+        mUpdateTarget = updateTarget;
+        mPendingUpdates = 0;
+        mPosted = false;
+        mLastUpdateTime = 0;
+    }
+
+
+    /* Schedules given updates - they are applied as soon as the rate limit allows */
+    public void schedule(int updates) {
+        mPendingUpdates |= updates;
+        if (mPosted || mPendingUpdates == 0) {
+            return;
+        }
+        long delay = Math.max(0, mLastUpdateTime + MIN_UPDATE_INTERVAL - SystemClock.elapsedRealtime());
+        mHandler.postDelayed(this, delay);
+        mPosted = true;
+    }
+
+
+    /* Applies given updates together with all pending ones right away */
+    public void flush(int updates) {
+        mPendingUpdates |= updates;
+        run();
+    }
+
+
+    /* Notes that given updates have been applied directly - they are dropped from pending ones */
+    public void markApplied(int updates) {
+        mPendingUpdates &= ~updates;
+        mLastUpdateTime = SystemClock.elapsedRealtime();
+        if (mPendingUpdates == 0) {
+            cancelPosted();
+        }
+    }
+
+
+    /* Drops all pending updates */
+    public void cancel() {
+        mPendingUpdates = 0;
+        cancelPosted();
+    }
+
+
+    @Override
+    public void run() {
+        cancelPosted();
+        int updates = mPendingUpdates;
+        if (updates == 0) {
+            return;
+        }
+        mPendingUpdates = 0;
+        mLastUpdateTime = SystemClock.elapsedRealtime();
+        mUpdateTarget.applyUpdates(updates);
+    }
+
+
+    /* Removes posted run of this scheduler */
+    private void cancelPosted() {
+        if (mPosted) {
+            mHandler.removeCallbacks(this);
+            mPosted = false;
+        }
+    }
+
+}
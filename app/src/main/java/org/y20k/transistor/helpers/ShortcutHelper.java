@@ -68,6 +68,7 @@ public final class ShortcutHelper implements TransistorKeys {
             Intent removeIntent = new Intent();
             removeIntent.putExtra(Intent.EXTRA_SHORTCUT_NAME, station.getStationName());
             removeIntent.putExtra(Intent.EXTRA_SHORTCUT_ICON, imageHelper.createShortcutOnRadioShape(192));
+            imageHelper.release();
             removeIntent.putExtra("duplicate", false);
             removeIntent.putExtra(Intent.EXTRA_SHORTCUT_INTENT, createShortcutIntent(context, station));
             removeIntent.setAction("com.android.launcher.action.UNINSTALL_SHORTCUT");
@@ -97,14 +98,17 @@ public final class ShortcutHelper implements TransistorKeys {
     /* Create shortcut icon */
     private static IconCompat createShortcutIcon(Context context, Station station) {
         ImageHelper imageHelper = new ImageHelper(station, context);
+        IconCompat shortcutIcon;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             // only return the station image - Oreo adds an app icon badge to the shortcut - no need for additional branding
 //            return IconCompat.createWithAdaptiveBitmap(imageHelper.createSquareImage(192));
-            return IconCompat.createWithAdaptiveBitmap(imageHelper.createSquareImage(192, true));
+            shortcutIcon = IconCompat.createWithAdaptiveBitmap(imageHelper.createSquareImage(192, true));
         } else {
             // return station image in circular frame
-            return IconCompat.createWithBitmap(imageHelper.createShortcutOnRadioShape(192));
+            shortcutIcon = IconCompat.createWithBitmap(imageHelper.createShortcutOnRadioShape(192));
         }
+        imageHelper.release();
+        return shortcutIcon;
     }
 
 }
@@ -22,7 +22,6 @@ import android.os.IBinder;
 import android.preference.PreferenceManager;
 
 import androidx.annotation.Nullable;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import org.y20k.transistor.PlayerService;
 
@@ -138,11 +137,8 @@ public class SleepTimerService  extends Service implements TransistorKeys {
             public void onTick(long millisUntilFinished) {
                 mTimerRemaining = millisUntilFinished;
 
-                // send local broadcast (needed by PlayerFragment)
-                Intent i = new Intent();
-                i.setAction(ACTION_TIMER_RUNNING);
-                i.putExtra(EXTRA_TIMER_REMAINING, mTimerRemaining);
-                LocalBroadcastManager.getInstance(getApplication()).sendBroadcast(i);
+                // publish remaining time (needed by PlayerFragment)
+                StateStore.TIMER_REMAINING.publish(mTimerRemaining);
 
                 LogHelper.v(LOG_TAG, "Sleep timer. Remaining time: " + mTimerRemaining);
             }
@@ -156,11 +152,8 @@ public class SleepTimerService  extends Service implements TransistorKeys {
                 intent.setAction(ACTION_STOP);
                 startService(intent);
 
-                // send local broadcast (needed by PlayerFragment)
-                Intent i = new Intent();
-                i.setAction(ACTION_TIMER_RUNNING);
-                i.putExtra(EXTRA_TIMER_REMAINING, mTimerRemaining);
-                LocalBroadcastManager.getInstance(getApplication()).sendBroadcast(i);
+                // publish remaining time (needed by PlayerFragment)
+                StateStore.TIMER_REMAINING.publish(mTimerRemaining);
 
                 // save timer state to preferences
                 saveTimerState(false);
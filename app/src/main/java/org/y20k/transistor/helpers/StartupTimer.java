@@ -0,0 +1,326 @@
+/**
+ * StartupTimer.java
+ * Implements the StartupTimer class
+ * A StartupTimer measures how long it takes from tapping a station until audio can be heard
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.SystemClock;
+
+import org.y20k.transistor.core.Station;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * StartupTimer class
+ * Stages are stamped from the UI thread, the player thread and background threads - all state is
+ * kept in atomics, so marking a stage never blocks. Only the first stamp of each stage counts.
+ */
+public final class StartupTimer implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StartupTimer.class.getSimpleName();
+
+
+    /* Keys */
+    public static final int STAGE_TAP = 0;
+    public static final int STAGE_START_PLAYBACK = 1;
+    public static final int STAGE_PROBE_START = 2;
+    public static final int STAGE_DNS = 3;
+    public static final int STAGE_CONNECT = 4;
+    public static final int STAGE_FIRST_BYTE = 5;
+    public static final int STAGE_PROBE_END = 6;
+    public static final int STAGE_BUFFERING = 7;
+    public static final int STAGE_READY = 8;
+    public static final int STAGE_METADATA = 9;
+    private static final String[] STAGE_NAMES = {"tap", "start_playback", "probe_start", "dns", "connect", "first_byte", "probe_end", "buffering", "ready", "metadata"};
+    private static final int RING_SIZE = 128;
+    private static final long MAX_TAP_TO_START_TIME = 5000L;
+
+
+    /* Main class variables */
+    private static final AtomicReferenceArray<Session> mRing = new AtomicReferenceArray<Session>(RING_SIZE);
+    private static final AtomicLong mNextSlot = new AtomicLong(0);
+    private static final AtomicReference<Session> mCurrentSession = new AtomicReference<Session>();
+
+
+    /* Stamps the user tap that is about to start playback of given station */
+    public static void tap(Context context, Station station) {
+        if (station.getStreamUri() == null) {
+            return;
+        }
+        Session session = new Session(station, getNetworkType(context));
+        session.mark(STAGE_TAP);
+        mCurrentSession.set(session);
+    }
+
+
+    /* Stamps start of playback - continues the session of a recent tap on the same station, or begins a new one */
+    public static void startPlayback(Context context, Station station) {
+        if (station.getStreamUri() == null) {
+            return;
+        }
+        Session session = mCurrentSession.get();
+        boolean continueSession = session != null
+                && session.mStreamUrl.equals(station.getStreamUri().toString())
+                && session.getStamp(STAGE_START_PLAYBACK) == 0L
+                && SystemClock.elapsedRealtime() - session.getStamp(STAGE_TAP) < MAX_TAP_TO_START_TIME;
+        if (!continueSession) {
+            // playback started without a tap - e.g. from notification, headset or Android Auto
+            session = new Session(station, getNetworkType(context));
+            mCurrentSession.set(session);
+        }
+        session.mark(STAGE_START_PLAYBACK);
+
+        // publish to ring buffer - stages still to come are stamped into the published session
+        int slot = (int) (mNextSlot.getAndIncrement() % RING_SIZE);
+        mRing.set(slot, session);
+    }
+
+
+    /* Stamps given stage, if the current session belongs to given stream */
+    public static void mark(String streamUrl, int stage) {
+        Session session = getSession(streamUrl);
+        if (session != null) {
+            session.mark(stage);
+        }
+    }
+
+
+    /* Returns current session, if it belongs to given stream - null otherwise */
+    public static Session getSession(String streamUrl) {
+        Session session = mCurrentSession.get();
+        if (session != null && streamUrl != null && session.mStreamUrl.equals(streamUrl)) {
+            return session;
+        }
+        return null;
+    }
+
+
+    /* Summarizes the time from first stamp until STATE_READY for given station - null if there is no completed start */
+    public static Summary getSummary(String streamUrl) {
+        ArrayList<Long> durations = new ArrayList<Long>();
+        for (Session session : getSessions()) {
+            long duration = session.getDuration(STAGE_READY);
+            if (duration >= 0 && session.mStreamUrl.equals(streamUrl)) {
+                durations.add(duration);
+            }
+        }
+        return Summary.create(durations);
+    }
+
+
+    /* Creates CSV with percentiles for every stage, grouped by station and network type */
+    public static String exportCsv() {
+        // group sessions by station and network type - keep order of first appearance
+        LinkedHashMap<String, ArrayList<Session>> groups = new LinkedHashMap<String, ArrayList<Session>>();
+        for (Session session : getSessions()) {
+            String key = session.mStreamUrl + "\n" + session.mNetworkType;
+            ArrayList<Session> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<Session>();
+                groups.put(key, group);
+            }
+            group.add(session);
+        }
+
+        StringBuilder csv = new StringBuilder();
+        csv.append("station,stream_url,network,stage,count,p50_ms,p90_ms,max_ms\n");
+        for (Map.Entry<String, ArrayList<Session>> group : groups.entrySet()) {
+            Session first = group.getValue().get(0);
+            for (int stage = STAGE_START_PLAYBACK; stage < STAGE_NAMES.length; stage++) {
+                ArrayList<Long> durations = new ArrayList<Long>();
+                for (Session session : group.getValue()) {
+                    long duration = session.getDuration(stage);
+                    if (duration >= 0) {
+                        durations.add(duration);
+                    }
+                }
+                Summary summary = Summary.create(durations);
+                if (summary == null) {
+                    continue;
+                }
+                csv.append(escapeCsv(first.mStationName)).append(',')
+                        .append(escapeCsv(first.mStreamUrl)).append(',')
+                        .append(escapeCsv(first.mNetworkType)).append(',')
+                        .append(STAGE_NAMES[stage]).append(',')
+                        .append(summary.getCount()).append(',')
+                        .append(summary.getMedian()).append(',')
+                        .append(summary.getPercentile90()).append(',')
+                        .append(summary.getMaximum()).append('\n');
+            }
+        }
+        LogHelper.v(LOG_TAG, "Exported startup timings for " + groups.size() + " station / network combinations.");
+        return csv.toString();
+    }
+
+
+    /* Returns all sessions currently held in ring buffer */
+    private static ArrayList<Session> getSessions() {
+        ArrayList<Session> sessions = new ArrayList<Session>(RING_SIZE);
+        for (int i = 0; i < RING_SIZE; i++) {
+            Session session = mRing.get(i);
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+
+    /* Determines name of active network type - e.g. "WIFI" or "MOBILE" */
+    @SuppressWarnings("deprecation")
+    private static String getNetworkType(Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connectivityManager != null ? connectivityManager.getActiveNetworkInfo() : null;
+        if (networkInfo == null || !networkInfo.isConnected()) {
+            return "NONE";
+        }
+        return networkInfo.getTypeName().toUpperCase(Locale.ENGLISH);
+    }
+
+
+    /* Quotes value for CSV, if necessary */
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        } else if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+
+    /**
+     * Inner class: Timestamps of one playback start
+     */
+    public static final class Session {
+
+        /* Main class variables */
+        private final String mStreamUrl;
+        private final String mStationName;
+        private final String mNetworkType;
+        private final AtomicLongArray mStamps;
+
+        /* Constructor */
+        private Session(Station station, String networkType) {
+            mStreamUrl = station.getStreamUri().toString();
+            mStationName = station.getStationName();
+            mNetworkType = networkType;
+            mStamps = new AtomicLongArray(STAGE_NAMES.length);
+        }
+
+        /* Stamps given stage - later stamps of the same stage are ignored */
+        public void mark(int stage) {
+            if (mStamps.compareAndSet(stage, 0L, SystemClock.elapsedRealtime())) {
+                if (stage == STAGE_READY) {
+                    LogHelper.v(LOG_TAG, "Time to first audio for " + mStationName + ": " + getDuration(STAGE_READY) + "ms (" + mNetworkType + ")");
+                }
+            }
+        }
+
+        /* Returns stamp of given stage - 0 if stage has not been reached */
+        private long getStamp(int stage) {
+            return mStamps.get(stage);
+        }
+
+        /* Returns time from tap (or start of playback) until given stage - -1 if stage has not been reached */
+        private long getDuration(int stage) {
+            long stamp = mStamps.get(stage);
+            long start = mStamps.get(STAGE_TAP) != 0L ? mStamps.get(STAGE_TAP) : mStamps.get(STAGE_START_PLAYBACK);
+            if (stamp == 0L || start == 0L) {
+                return -1L;
+            }
+            return stamp - start;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+
+    /**
+     * Inner class: Percentiles of a set of durations
+     */
+    public static final class Summary {
+
+        /* Main class variables */
+        private final int mCount;
+        private final long mMedian;
+        private final long mPercentile90;
+        private final long mMaximum;
+
+        /* Creates summary from given durations - null if there are none */
+        private static Summary create(ArrayList<Long> durations) {
+            int count = durations.size();
+            if (count == 0) {
+                return null;
+            }
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = durations.get(i);
+            }
+            Arrays.sort(sorted);
+            return new Summary(count, getPercentile(sorted, 50), getPercentile(sorted, 90), sorted[count - 1]);
+        }
+
+        /* Nearest-rank percentile of given sorted values */
+        private static long getPercentile(long[] sorted, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        /* Constructor */
+        private Summary(int count, long median, long percentile90, long maximum) {
+            mCount = count;
+            mMedian = median;
+            mPercentile90 = percentile90;
+            mMaximum = maximum;
+        }
+
+        /* Getter for number of measured starts */
+        public int getCount() {
+            return mCount;
+        }
+
+        /* Getter for median in milliseconds */
+        public long getMedian() {
+            return mMedian;
+        }
+
+        /* Getter for 90th percentile in milliseconds */
+        public long getPercentile90() {
+            return mPercentile90;
+        }
+
+        /* Getter for slowest start in milliseconds */
+        public long getMaximum() {
+            return mMaximum;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
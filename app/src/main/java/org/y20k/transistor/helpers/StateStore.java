@@ -0,0 +1,158 @@
+/**
+ * StateStore.java
+ * Implements the StateStore class
+ * A StateStore holds the latest value of a piece of app state and hands it to its observers
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.y20k.transistor.core.NowPlaying;
+import org.y20k.transistor.core.PlaybackState;
+import org.y20k.transistor.core.StationList;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * StateStore class
+ * Values can be published from any thread without locking. Observers are called on the main thread -
+ * values published in quick succession are conflated, so a slow observer only sees the latest one.
+ * Values must not be modified once they have been published. Events (e.g. errors) reach current
+ * observers like any value, but are not replayed to observers that subscribe later.
+ */
+public final class StateStore<T> {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StateStore.class.getSimpleName();
+
+
+    /* Stores */
+    public static final StateStore<PlaybackState> PLAYBACK_STATE = new StateStore<PlaybackState>();
+    public static final StateStore<NowPlaying> NOW_PLAYING = new StateStore<NowPlaying>();
+    public static final StateStore<Long> TIMER_REMAINING = new StateStore<Long>();
+    public static final StateStore<StationList> STATION_LIST = new StateStore<StationList>();
+
+
+    /* Observer Interface */
+    public interface Observer<T> {
+        void onChanged(T value);
+    }
+
+
+    /* Main class variables */
+    private static final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicReference<T> mValue;
+    private final CopyOnWriteArrayList<Subscription> mSubscriptions;
+    private volatile T mEvent;
+
+
+    /* Constructor */
+    private StateStore() {
+        mValue = new AtomicReference<T>();
+        mSubscriptions = new CopyOnWriteArrayList<Subscription>();
+        mEvent = null;
+    }
+
+
+    /* Getter for latest value - null if nothing has been published yet, or if the latest value is an event */
+    public T getValue() {
+        T value = mValue.get();
+        return value != mEvent ? value : null;
+    }
+
+
+    /* Publishes new value - can be called from any thread */
+    public void publish(T value) {
+        mValue.set(value);
+        for (Subscription subscription : mSubscriptions) {
+            subscription.schedule();
+        }
+    }
+
+
+    /* Publishes event - delivered to current observers only, never replayed - can be called from any thread */
+    public void publishEvent(T event) {
+        mEvent = event;
+        publish(event);
+    }
+
+
+    /* Registers observer - it receives the latest value right away, if there is one - call on main thread */
+    public void subscribe(Observer<T> observer) {
+        Subscription subscription = new Subscription(observer);
+        mSubscriptions.add(subscription);
+        T value = mValue.get();
+        if (value != null && value == mEvent) {
+            // treat event as delivered - only values published later reach the new observer
+            subscription.mDeliveredValue = value;
+        } else if (value != null) {
+            subscription.schedule();
+        }
+    }
+
+
+    /* Unregisters observer - call on main thread */
+    public void unsubscribe(Observer<T> observer) {
+        for (Subscription subscription : mSubscriptions) {
+            if (subscription.mObserver == observer) {
+                subscription.mActive = false;
+                mSubscriptions.remove(subscription);
+            }
+        }
+    }
+
+
+    /**
+     * Inner class: Link between store and one observer - at most one delivery is pending at a time
+     */
+    private final class Subscription implements Runnable {
+
+        /* Main class variables */
+        private final Observer<T> mObserver;
+        private final AtomicBoolean mPending;
+        private boolean mActive;
+        private T mDeliveredValue;
+
+        /* Constructor */
+        private Subscription(Observer<T> observer) {
+            mObserver = observer;
+            mPending = new AtomicBoolean(false);
+            mActive = true;
+            mDeliveredValue = null;
+        }
+
+        /* Posts delivery to main thread - unless one is pending already, that will pick up the latest value */
+        private void schedule() {
+            if (mPending.compareAndSet(false, true)) {
+                mMainHandler.post(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            mPending.set(false);
+            T value = mValue.get();
+            if (mActive && value != mDeliveredValue) {
+                mDeliveredValue = value;
+                mObserver.onChanged(value);
+            }
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
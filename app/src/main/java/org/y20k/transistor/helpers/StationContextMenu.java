@@ -57,6 +57,12 @@ public final class StationContextMenu extends DialogFragment implements Transist
                         DialogRename.show(activity, station);
                         return true;
 
+                    // CASE BUFFER PROFILE
+                    case R.id.menu_buffer_profile:
+                        // construct and run buffer profile dialog
+                        DialogBufferProfile.show(activity, station);
+                        return true;
+
                     // CASE DELETE
                     case R.id.menu_delete:
                         // construct and run delete dialog
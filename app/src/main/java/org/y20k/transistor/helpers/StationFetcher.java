@@ -74,7 +74,6 @@ public final class StationFetcher extends AsyncTask<Void, Void, Bundle> implemen
 
         Bundle stationDownloadBundle = new Bundle();
         Station station = null;
-        Bitmap stationImage = null;
 
         if (mFolderExists && mStationUriScheme != null && mStationUriScheme.startsWith("http")  && urlCleanup()) {
             // download new station
@@ -86,9 +85,7 @@ public final class StationFetcher extends AsyncTask<Void, Void, Bundle> implemen
                 if (mStationName != null) {
                     station.setStationName(mStationName);
                 }
-                // download new station image and pack to bundle
-                stationImage = station.fetchImageFile(mStationURL);
-                stationDownloadBundle.putParcelable(KEY_DOWNLOAD_STATION_IMAGE, stationImage);
+                // station image is resolved after the station has been added - see onPostExecute
             }
             // pack bundle
             stationDownloadBundle.putParcelable(KEY_DOWNLOAD_STATION, station);
@@ -136,14 +133,18 @@ public final class StationFetcher extends AsyncTask<Void, Void, Bundle> implemen
         // CASE 1: station was successfully fetched
         if (station != null && fetchResults != null && fetchResults.getInt(RESULT_FETCH_STATUS) == CONTAINS_ONE_STREAM && mFolderExists) {
             // hand over result to MainActivity
-            ((MainActivity)mActivity).handleStationAdd(stationDownloadBundle);
+            int stationId = ((MainActivity)mActivity).handleStationAdd(stationDownloadBundle);
             LogHelper.v(LOG_TAG, "Station was successfully fetched: " + station.getStreamUri().toString());
+            // look for station image in background
+            if (stationId != -1 && mStationURL != null) {
+                resolveStationImage(station);
+            }
         }
 
         // CASE 2: multiple streams found
         if (station != null && fetchResults != null && fetchResults.getInt(RESULT_FETCH_STATUS) == CONTAINS_MULTIPLE_STREAMS && mFolderExists) {
             // let user choose
-            DialogAddChooseStream.show(mActivity, fetchResults.getStringArrayList(RESULT_LIST_OF_URIS), fetchResults.getStringArrayList(RESULT_LIST_OF_NAMES));
+            DialogAddChooseStream.show(mActivity, mStationUri, fetchResults.getStringArrayList(RESULT_LIST_OF_URIS), fetchResults.getStringArrayList(RESULT_LIST_OF_NAMES));
         }
 
         // CASE 3: an error occurred
@@ -181,6 +182,27 @@ public final class StationFetcher extends AsyncTask<Void, Void, Bundle> implemen
     }
 
 
+    /* Resolves image of newly added station - the collection picks up the image file, once it is written */
+    private void resolveStationImage(final Station station) {
+        final File stationImageFile = station.getStationImageFile();
+        final File stationPlaylistFile = station.getStationPlaylistFile();
+        StationIconResolver.resolveAsync(mStationURL, station.getStreamUri(), new StationIconResolver.Listener() {
+            @Override
+            public void onIconResolved(Bitmap icon) {
+                if (icon == null || stationImageFile == null) {
+                    return;
+                }
+                if (stationImageFile.exists() || stationPlaylistFile == null || !stationPlaylistFile.exists()) {
+                    // image has been set by user in the meantime - or station has been renamed or deleted
+                    LogHelper.v(LOG_TAG, "Discarding resolved image for " + station.getStationName());
+                    return;
+                }
+                station.writeImageFile(icon);
+            }
+        });
+    }
+
+
     /* checks and cleans url string and sets mStationURL */
     private boolean urlCleanup() {
         // remove whitespaces and create url
@@ -0,0 +1,570 @@
+/**
+ * StationIconResolver.java
+ * Implements the StationIconResolver class
+ * A StationIconResolver finds the best available icon for a radio station on the web
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * StationIconResolver class
+ * Candidates are fetched concurrently: icons linked in the head of the station homepage (taken from the
+ * ICY "icy-url" header, or the host of the station address) and favicon.ico. The icon with the highest
+ * resolution wins. Results are kept on disk per homepage host, so other stations of the same host and
+ * repeated adds need no network.
+ */
+public final class StationIconResolver {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StationIconResolver.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String ICON_CACHE_FOLDER = "station_icons";
+    private static final long ICON_CACHE_MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_CONCURRENT_REQUESTS = 6;
+    private static final int REQUEST_TIMEOUT = 4000;
+    private static final long RESOLVE_TIMEOUT = 10000;
+    private static final int MAX_REDIRECTS = 5;
+    private static final int MAX_HEAD_LENGTH = 64 * 1024;
+    private static final int MAX_ICON_BYTES = 1024 * 1024;
+    private static final int MAX_ICON_SIZE = 512;
+    private static final int GOOD_ICON_SIZE = 180; // size of apple-touch-icon - no need to look further
+    private static final Pattern LINK_TAG = Pattern.compile("<link\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG_ATTRIBUTE = Pattern.compile("([a-zA-Z-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+))");
+
+
+    /* Listener Interface */
+    public interface Listener {
+        void onIconResolved(Bitmap icon);
+    }
+
+
+    /* Main class variables */
+    private static final ThreadPoolExecutor mResolveExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static final ThreadPoolExecutor mRequestExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static File mCacheFolder;
+
+
+    /* Lets idle executor threads time out */
+    static {
+        mResolveExecutor.allowCoreThreadTimeOut(true);
+        mRequestExecutor.allowCoreThreadTimeOut(true);
+    }
+
+
+    /* Sets up disk cache - call from Application.onCreate */
+    public static synchronized void initialize(Context context) {
+        mCacheFolder = new File(context.getCacheDir(), ICON_CACHE_FOLDER);
+    }
+
+
+    /* Resolves icon of given station in background - listener is called on background thread, with null if no icon was found */
+    public static void resolveAsync(final URL stationUrl, final Uri streamUri, final Listener listener) {
+        mResolveExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap icon = null;
+                try {
+                    icon = resolve(stationUrl, streamUri);
+                } catch (Exception e) {
+                    // listener must always hear back
+                    LogHelper.e(LOG_TAG, "Unable to resolve icon for " + stationUrl + ": " + e.toString());
+                }
+                listener.onIconResolved(icon);
+            }
+        });
+    }
+
+
+    /* Resolves icon of given station - blocks for up to RESOLVE_TIMEOUT, call from background thread */
+    public static Bitmap resolve(URL stationUrl, Uri streamUri) {
+        // collect homepages known up front
+        LinkedHashSet<String> homepages = new LinkedHashSet<String>();
+        String streamUrl = streamUri != null ? streamUri.toString() : null;
+        String icyUrl = getKnownIcyUrl(streamUrl);
+        if (icyUrl == null && stationUrl != null) {
+            icyUrl = getKnownIcyUrl(stationUrl.toString());
+        }
+        String icyHomepage = normalizeHomepage(icyUrl);
+        String stationHomepage = stationUrl != null ? normalizeHomepage(stationUrl.getProtocol() + "://" + stationUrl.getHost() + "/") : null;
+        if (icyHomepage != null) {
+            homepages.add(icyHomepage);
+        }
+        if (stationHomepage != null) {
+            homepages.add(stationHomepage);
+        }
+
+        // CASE: icon of homepage host is cached
+        for (String homepage : homepages) {
+            Bitmap icon = readCachedIcon(homepage);
+            if (icon != null) {
+                LogHelper.v(LOG_TAG, "Using cached icon for " + homepage);
+                return icon;
+            }
+        }
+
+        // fetch all candidates concurrently
+        Resolution resolution = new Resolution();
+        for (String homepage : homepages) {
+            resolution.requestHomepage(homepage);
+        }
+        String wwwFaviconUrl = stationUrl != null ? createWwwFaviconUrl(stationUrl) : null;
+        if (wwwFaviconUrl != null) {
+            // the classic guess: favicon of www host
+            resolution.requestIcon(wwwFaviconUrl);
+        }
+        if (icyUrl == null && streamUrl != null && streamUrl.startsWith("http")) {
+            // ask stream server for its homepage
+            resolution.requestStreamProbe(streamUrl);
+        }
+        Candidate best = resolution.await();
+
+        if (best == null) {
+            LogHelper.w(LOG_TAG, "No icon found for " + stationUrl);
+            return null;
+        }
+        LogHelper.v(LOG_TAG, "Resolved icon " + best.mUrl + " (" + best.mSize + "px)");
+        for (String homepage : resolution.mHomepages) {
+            writeCachedIcon(homepage, best.mIcon);
+        }
+        return best.mIcon;
+    }
+
+
+    /* Returns homepage announced by stream server - only if it is cached already */
+    private static String getKnownIcyUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        StreamProbeCache.ProbeResult probeResult = StreamProbeCache.get(url);
+        return probeResult != null ? probeResult.getIcyHeader("icy-url") : null;
+    }
+
+
+    /* Returns given homepage as http(s) address - null if it is not usable */
+    private static String normalizeHomepage(String homepage) {
+        if (homepage == null || homepage.trim().isEmpty()) {
+            return null;
+        }
+        homepage = homepage.trim();
+        if (!homepage.startsWith("http://") && !homepage.startsWith("https://")) {
+            // icy-url is often given without scheme
+            homepage = "http://" + homepage;
+        }
+        try {
+            return getHost(homepage) != null ? homepage : null;
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+
+    /* Creates address of favicon on www host of given station address - replaces first label of host - null if host has no domain */
+    private static String createWwwFaviconUrl(URL stationUrl) {
+        String host = stationUrl.getHost();
+        if (host == null || host.isEmpty()) {
+            return null;
+        }
+        if (!host.startsWith("www")) {
+            int index = host.indexOf(".");
+            if (index == -1) {
+                // e.g. "localhost" - there is no www host to guess
+                return null;
+            }
+            host = "www" + host.substring(index);
+        }
+        return "http://" + host + "/favicon.ico";
+    }
+
+
+    /* Returns lower case host of given address */
+    private static String getHost(String url) throws MalformedURLException {
+        String host = new URL(url).getHost();
+        return host != null && !host.isEmpty() ? host.toLowerCase(Locale.ENGLISH) : null;
+    }
+
+
+    /* Returns disk cache file for host of given homepage */
+    private static synchronized File getCacheFile(String homepage) {
+        if (mCacheFolder == null) {
+            return null;
+        }
+        try {
+            String host = getHost(homepage);
+            return host != null ? new File(mCacheFolder, host.replaceAll("[^a-z0-9.-]", "_") + ".png") : null;
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+
+    /* Reads cached icon for host of given homepage - null if there is none or if it is too old */
+    private static Bitmap readCachedIcon(String homepage) {
+        File cacheFile = getCacheFile(homepage);
+        if (cacheFile == null || !cacheFile.exists()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cacheFile.lastModified() > ICON_CACHE_MAX_AGE) {
+            cacheFile.delete();
+            return null;
+        }
+        return BitmapFactory.decodeFile(cacheFile.getPath());
+    }
+
+
+    /* Writes icon for host of given homepage to disk cache */
+    private static void writeCachedIcon(String homepage, Bitmap icon) {
+        File cacheFile = getCacheFile(homepage);
+        if (cacheFile == null || (!cacheFile.getParentFile().exists() && !cacheFile.getParentFile().mkdirs())) {
+            return;
+        }
+        File temporaryFile = new File(cacheFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temporaryFile)) {
+            icon.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to write cached icon: " + e.toString());
+            temporaryFile.delete();
+            return;
+        }
+        if (!temporaryFile.renameTo(cacheFile)) {
+            temporaryFile.delete();
+        }
+    }
+
+
+    /* Opens a connection to given url and follows redirects - caller has to disconnect */
+    private static HttpURLConnection openConnection(String url) throws IOException {
+        URL location = new URL(url);
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            HttpURLConnection connection = (HttpURLConnection) location.openConnection();
+            connection.setConnectTimeout(REQUEST_TIMEOUT);
+            connection.setReadTimeout(REQUEST_TIMEOUT);
+            connection.setInstanceFollowRedirects(false);
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_MOVED_TEMP || status == HttpURLConnection.HTTP_MOVED_PERM
+                    || status == HttpURLConnection.HTTP_SEE_OTHER || status == 307 || status == 308) {
+                // follow redirect - may switch between http and https
+                String redirectLocation = connection.getHeaderField("Location");
+                connection.disconnect();
+                if (redirectLocation == null) {
+                    throw new IOException("Redirect without location: " + location);
+                }
+                location = new URL(location, redirectLocation);
+                continue;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                connection.disconnect();
+                throw new IOException("HTTP " + status + ": " + location);
+            }
+            return connection;
+        }
+        throw new IOException("Too many redirects: " + url);
+    }
+
+
+    /* Downloads and decodes icon at given address */
+    private static Candidate fetchIcon(String iconUrl) throws IOException {
+        byte[] data;
+        HttpURLConnection connection = openConnection(iconUrl);
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                if (out.size() + count > MAX_ICON_BYTES) {
+                    throw new IOException("Icon too large: " + iconUrl);
+                }
+                out.write(buffer, 0, count);
+            }
+            data = out.toByteArray();
+        } finally {
+            connection.disconnect();
+        }
+
+        // decode bounds first - rank by original resolution, keep at most MAX_ICON_SIZE
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        int size = Math.min(options.outWidth, options.outHeight);
+        if (size <= 0) {
+            return null;
+        }
+        options.inSampleSize = 1;
+        while (Math.max(options.outWidth, options.outHeight) / (options.inSampleSize * 2) >= MAX_ICON_SIZE) {
+            options.inSampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        Bitmap icon = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        return icon != null ? new Candidate(iconUrl, icon, size) : null;
+    }
+
+
+    /* Reads head of homepage at given address and returns addresses of the icons it links to */
+    private static List<String> fetchLinkedIcons(String homepage) throws IOException {
+        StringBuilder head = new StringBuilder(8 * 1024);
+        URL baseUrl;
+        HttpURLConnection connection = openConnection(homepage);
+        try {
+            baseUrl = connection.getURL();
+            String contentType = connection.getContentType();
+            if (contentType != null && !contentType.toLowerCase(Locale.ENGLISH).contains("html")) {
+                return new ArrayList<String>();
+            }
+            // read until end of head - the rest of the page is never downloaded
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), "ISO-8859-1")) {
+                char[] buffer = new char[4096];
+                int count;
+                while (head.length() < MAX_HEAD_LENGTH && (count = reader.read(buffer)) != -1) {
+                    int searchStart = Math.max(0, head.length() - 7);
+                    head.append(buffer, 0, count);
+                    String recent = head.substring(searchStart).toLowerCase(Locale.ENGLISH);
+                    if (recent.contains("</head") || recent.contains("<body")) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+
+        // collect icons - touch icons first, they are usually larger
+        ArrayList<String> touchIcons = new ArrayList<String>();
+        ArrayList<String> icons = new ArrayList<String>();
+        Matcher linkMatcher = LINK_TAG.matcher(head);
+        while (linkMatcher.find()) {
+            String rel = null;
+            String href = null;
+            Matcher attributeMatcher = TAG_ATTRIBUTE.matcher(linkMatcher.group());
+            while (attributeMatcher.find()) {
+                String value = attributeMatcher.group(2) != null ? attributeMatcher.group(2) : attributeMatcher.group(3) != null ? attributeMatcher.group(3) : attributeMatcher.group(4);
+                String name = attributeMatcher.group(1).toLowerCase(Locale.ENGLISH);
+                if (name.equals("rel")) {
+                    rel = value.toLowerCase(Locale.ENGLISH);
+                } else if (name.equals("href")) {
+                    href = value.trim();
+                }
+            }
+            if (rel == null || href == null || href.isEmpty() || href.startsWith("data:") || href.toLowerCase(Locale.ENGLISH).endsWith(".svg")
+                    || !rel.contains("icon") || rel.contains("mask-icon")) {
+                continue;
+            }
+            try {
+                String iconUrl = new URL(baseUrl, href).toString();
+                if (rel.contains("apple-touch-icon")) {
+                    touchIcons.add(iconUrl);
+                } else {
+                    icons.add(iconUrl);
+                }
+            } catch (MalformedURLException e) {
+                LogHelper.v(LOG_TAG, "Skipping icon link: " + href);
+            }
+        }
+        touchIcons.addAll(icons);
+        // favicon of host the homepage redirected to
+        touchIcons.add(new URL(baseUrl, "/favicon.ico").toString());
+        return touchIcons;
+    }
+
+
+    /**
+     * Inner class: One icon that has been downloaded and decoded
+     */
+    private static final class Candidate {
+
+        /* Main class variables */
+        private final String mUrl;
+        private final Bitmap mIcon;
+        private final int mSize;
+
+        /* Constructor */
+        private Candidate(String url, Bitmap icon, int size) {
+            mUrl = url;
+            mIcon = icon;
+            mSize = size;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+
+    /**
+     * Inner class: Outcome of one request - an icon, more icon addresses or a homepage
+     */
+    private static final class Outcome {
+
+        /* Main class variables */
+        private Candidate mCandidate;
+        private List<String> mIconUrls;
+        private String mHomepage;
+    }
+    /**
+     * End of inner class
+     */
+
+
+    /**
+     * Inner class: Requests of one resolution - new requests are started as soon as results point to them
+     */
+    private static final class Resolution {
+
+        /* Main class variables */
+        private final ExecutorCompletionService<Outcome> mCompletionService;
+        private final ArrayList<Future<Outcome>> mFutures;
+        private final HashSet<String> mRequestedUrls;
+        private final LinkedHashSet<String> mHomepages;
+        private int mOutstanding;
+
+        /* Constructor */
+        private Resolution() {
+            mCompletionService = new ExecutorCompletionService<Outcome>(mRequestExecutor);
+            mFutures = new ArrayList<Future<Outcome>>();
+            mRequestedUrls = new HashSet<String>();
+            mHomepages = new LinkedHashSet<String>();
+            mOutstanding = 0;
+        }
+
+        /* Starts reading head and favicon of given homepage */
+        private void requestHomepage(String homepage) {
+            final String url = normalizeHomepage(homepage);
+            if (url == null || !mHomepages.add(url)) {
+                return;
+            }
+            if (mRequestedUrls.add(url)) {
+                submit(new Callable<Outcome>() {
+                    @Override
+                    public Outcome call() throws Exception {
+                        Outcome outcome = new Outcome();
+                        outcome.mIconUrls = fetchLinkedIcons(url);
+                        return outcome;
+                    }
+                });
+            }
+            try {
+                requestIcon(new URL(new URL(url), "/favicon.ico").toString());
+            } catch (MalformedURLException e) {
+                LogHelper.v(LOG_TAG, "Skipping favicon of " + url);
+            }
+        }
+
+        /* Starts downloading icon at given address */
+        private void requestIcon(final String iconUrl) {
+            if (!mRequestedUrls.add(iconUrl)) {
+                return;
+            }
+            submit(new Callable<Outcome>() {
+                @Override
+                public Outcome call() throws Exception {
+                    Outcome outcome = new Outcome();
+                    outcome.mCandidate = fetchIcon(iconUrl);
+                    return outcome;
+                }
+            });
+        }
+
+        /* Starts asking stream server for its homepage */
+        private void requestStreamProbe(final String streamUrl) {
+            submit(new Callable<Outcome>() {
+                @Override
+                public Outcome call() throws Exception {
+                    Outcome outcome = new Outcome();
+                    outcome.mHomepage = StreamProbeCache.getOrProbe(streamUrl).getIcyHeader("icy-url");
+                    return outcome;
+                }
+            });
+        }
+
+        /* Submits request */
+        private void submit(Callable<Outcome> request) {
+            mFutures.add(mCompletionService.submit(request));
+            mOutstanding++;
+        }
+
+        /* Waits for requests - returns icon with highest resolution, once all are done, a good one is found or time is up */
+        private Candidate await() {
+            Candidate best = null;
+            long deadline = System.currentTimeMillis() + RESOLVE_TIMEOUT;
+            try {
+                while (mOutstanding > 0 && (best == null || best.mSize < GOOD_ICON_SIZE)) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    Future<Outcome> future = remaining > 0 ? mCompletionService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                    if (future == null) {
+                        LogHelper.w(LOG_TAG, "Icon resolution timed out. Pending requests: " + mOutstanding);
+                        break;
+                    }
+                    mOutstanding--;
+                    Outcome outcome;
+                    try {
+                        outcome = future.get();
+                    } catch (ExecutionException e) {
+                        LogHelper.v(LOG_TAG, "Icon request failed: " + e.getCause());
+                        continue;
+                    }
+                    if (outcome.mCandidate != null && (best == null || outcome.mCandidate.mSize > best.mSize)) {
+                        best = outcome.mCandidate;
+                    }
+                    if (outcome.mIconUrls != null) {
+                        for (String iconUrl : outcome.mIconUrls) {
+                            requestIcon(iconUrl);
+                        }
+                    }
+                    if (outcome.mHomepage != null) {
+                        requestHomepage(outcome.mHomepage);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // stop requests that are no longer needed
+                for (Future<Outcome> future : mFutures) {
+                    future.cancel(true);
+                }
+            }
+            return best;
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
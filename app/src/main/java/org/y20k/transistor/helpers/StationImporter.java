@@ -0,0 +1,254 @@
+/**
+ * StationImporter.java
+ * Implements the StationImporter class
+ * A StationImporter adds all streams of a playlist to the collection
+ * The importer runs as AsyncTask
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.DialogInterface;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.widget.Toast;
+
+import org.y20k.transistor.MainActivity;
+import org.y20k.transistor.R;
+import org.y20k.transistor.core.PlaylistParser;
+import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Locale;
+
+
+/**
+ * StationImporter class
+ * The playlist is parsed while it is read, so its size does not matter. Streams already in the
+ * collection (or earlier in the playlist) are skipped. Stations are written one by one and handed to
+ * MainActivity in batches - the list of stations is updated once per batch.
+ */
+public final class StationImporter extends AsyncTask<Void, StationImporter.Batch, StationImporter.Batch> implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StationImporter.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int BATCH_SIZE = 100;
+
+
+    /* Main class variables */
+    private final Activity mActivity;
+    private final File mFolder;
+    private final Uri mPlaylistUri;
+    private final StationList mStationList;
+    private AlertDialog mProgressDialog;
+    private Batch mPendingBatch;
+    private int mImportedCount;
+    private int mSkippedCount;
+
+
+    /* Constructor */
+    public StationImporter(Activity activity, File folder, Uri playlistUri) {
+        mActivity = activity;
+        mFolder = folder;
+        mPlaylistUri = playlistUri;
+        mStationList = StateStore.STATION_LIST.getValue();
+        mImportedCount = 0;
+        mSkippedCount = 0;
+    }
+
+
+    /* Main thread: show progress with option to cancel */
+    @Override
+    protected void onPreExecute() {
+        AlertDialog.Builder builder = new AlertDialog.Builder(mActivity);
+        builder.setTitle(R.string.dialog_import_stations_title);
+        builder.setMessage(mActivity.getString(R.string.dialog_import_stations_progress, 0, 0));
+        builder.setCancelable(false);
+        builder.setNegativeButton(R.string.dialog_generic_button_cancel, new DialogInterface.OnClickListener() {
+            // listen for click on cancel button
+            public void onClick(DialogInterface arg0, int arg1) {
+                // stop import - stations written so far are kept
+                cancel(false);
+            }
+        });
+        mProgressDialog = builder.show();
+    }
+
+
+    /* Background thread: read playlist and write stations */
+    @Override
+    protected Batch doInBackground(Void... params) {
+
+        // index stream addresses and file names that are taken already
+        final HashSet<String> streamKeys = new HashSet<String>();
+        final HashSet<String> fileNames = new HashSet<String>();
+        if (mStationList != null) {
+            for (Station station : mStationList) {
+                if (station.getStreamUri() != null) {
+                    streamKeys.add(StationList.normalizeStreamUri(station.getStreamUri()));
+                }
+            }
+        }
+        String[] existingFileNames = mFolder.list();
+        if (existingFileNames != null) {
+            for (String fileName : existingFileNames) {
+                fileNames.add(fileName.toLowerCase(Locale.ENGLISH));
+            }
+        }
+
+        // parse playlist - entries are handled as soon as they have been read
+        mPendingBatch = new Batch();
+        PlaylistParser parser = new PlaylistParser(new PlaylistParser.Listener() {
+            @Override
+            public boolean onEntry(PlaylistParser.Entry entry) {
+                if (isCancelled()) {
+                    return false;
+                }
+                Uri streamUri = Uri.parse(entry.getUrl());
+                if (!streamKeys.add(StationList.normalizeStreamUri(streamUri))) {
+                    mPendingBatch.mSkippedCount++;
+                    return true;
+                }
+                Station station = new Station(mFolder, createUniqueStationName(entry, streamUri, fileNames), streamUri);
+                station.writePlaylistFile(mFolder);
+                mPendingBatch.mStations.add(station);
+                if (mPendingBatch.mStations.size() >= BATCH_SIZE) {
+                    publishProgress(mPendingBatch);
+                    mPendingBatch = new Batch();
+                }
+                return true;
+            }
+        });
+        try (InputStream inputStream = openPlaylist()) {
+            parser.parse(inputStream);
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to read playlist: " + e.toString());
+        }
+        LogHelper.v(LOG_TAG, "Playlist read. Entries: " + parser.getEntryCount());
+
+        // remaining stations are handed over when the task ends - also if it has been cancelled
+        return mPendingBatch;
+    }
+
+
+    /* Main thread: add batch of stations to collection */
+    @Override
+    protected void onProgressUpdate(Batch... batches) {
+        for (Batch batch : batches) {
+            handOver(batch);
+        }
+        if (mProgressDialog != null) {
+            mProgressDialog.setMessage(mActivity.getString(R.string.dialog_import_stations_progress, mImportedCount, mSkippedCount));
+        }
+    }
+
+
+    /* Main thread: add remaining stations and report result */
+    @Override
+    protected void onPostExecute(Batch batch) {
+        finish(batch, R.string.toastmessage_import_finished);
+    }
+
+
+    /* Main thread: add stations written before import was cancelled and report result */
+    @Override
+    protected void onCancelled(Batch batch) {
+        finish(batch, R.string.toastmessage_import_cancelled);
+    }
+
+
+    /* Adds remaining stations, closes progress dialog and shows result */
+    private void finish(Batch batch, int messageResource) {
+        if (batch != null) {
+            handOver(batch);
+        }
+        if (mProgressDialog != null && mProgressDialog.isShowing() && !mActivity.isFinishing()) {
+            mProgressDialog.dismiss();
+        }
+        Toast.makeText(mActivity, mActivity.getString(messageResource, mImportedCount), Toast.LENGTH_LONG).show();
+        LogHelper.v(LOG_TAG, "Import ended. Imported: " + mImportedCount + " Skipped: " + mSkippedCount);
+    }
+
+
+    /* Hands batch of stations to MainActivity */
+    private void handOver(Batch batch) {
+        mImportedCount += batch.mStations.size();
+        mSkippedCount += batch.mSkippedCount;
+        if (batch.mStations.isEmpty()) {
+            return;
+        }
+        if (mActivity.isFinishing() || mActivity.isDestroyed()) {
+            // CollectionWatcher picks up the playlist files written meanwhile
+            LogHelper.w(LOG_TAG, "Activity is gone. Unable to hand over " + batch.mStations.size() + " stations.");
+            return;
+        }
+        ((MainActivity)mActivity).handleStationImport(batch.mStations);
+    }
+
+
+    /* Opens playlist - remote or local */
+    private InputStream openPlaylist() throws IOException {
+        String scheme = mPlaylistUri.getScheme();
+        if (scheme != null && scheme.startsWith("http")) {
+            return StreamProbeCache.openConnection(mPlaylistUri.toString().trim()).getInputStream();
+        }
+        InputStream inputStream = mActivity.getContentResolver().openInputStream(mPlaylistUri);
+        if (inputStream == null) {
+            throw new IOException("Unable to open " + mPlaylistUri);
+        }
+        return inputStream;
+    }
+
+
+    /* Creates station name whose playlist and image files do not exist yet */
+    private String createUniqueStationName(PlaylistParser.Entry entry, Uri streamUri, HashSet<String> fileNames) {
+        String stationName = entry.getTitle() != null ? entry.getTitle().trim() : "";
+        if (stationName.isEmpty()) {
+            stationName = streamUri.getHost() != null ? streamUri.getHost() : entry.getUrl();
+        }
+        String uniqueStationName = stationName;
+        for (int i = 2; fileNames.contains(createFileName(uniqueStationName)); i++) {
+            uniqueStationName = stationName + " (" + i + ")";
+        }
+        fileNames.add(createFileName(uniqueStationName));
+        return uniqueStationName;
+    }
+
+
+    /* Creates name of playlist file for given station name - see Station.setStationPlaylistFile */
+    private static String createFileName(String stationName) {
+        return stationName.replaceAll("[:/]", "_").toLowerCase(Locale.ENGLISH) + ".m3u";
+    }
+
+
+    /**
+     * Inner class: Stations written since the last hand over
+     */
+    static final class Batch {
+
+        /* Main class variables */
+        private final ArrayList<Station> mStations = new ArrayList<Station>(BATCH_SIZE);
+        private int mSkippedCount = 0;
+    }
+    /**
+     * End of inner class
+     */
+
+}
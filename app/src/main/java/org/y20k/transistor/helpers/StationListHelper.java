@@ -20,12 +20,12 @@ import android.preference.PreferenceManager;
 
 import org.y20k.transistor.PlayerService;
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 
 
@@ -38,87 +38,133 @@ public final class StationListHelper implements TransistorKeys {
     private static final String LOG_TAG = StationListHelper.class.getSimpleName();
 
 
-    /* Creates a real copy of given station list*/
-    public static ArrayList<Station> copyStationList(ArrayList<Station> stationList) {
-        ArrayList<Station> newStationList = new ArrayList<Station>();
-        for (Station station : stationList) {
-            newStationList.add(new Station (station));
+    /* Compares stations by name */
+    private static final Comparator<Station> STATION_NAME_COMPARATOR = new Comparator<Station>() {
+        @Override
+        public int compare(Station station1, Station station2) {
+            // Compares two stations: returns "1" if name if this station is greater than name of given station
+            return station1.getStationName().compareToIgnoreCase(station2.getStationName());
         }
-        return newStationList;
+    };
+
+
+    /* Returns copy of given list with station at given position set to given playback state - stations in a list are never changed */
+    public static StationList setPlaybackState(StationList stationList, int stationId, int playbackState) {
+        if (stationList.get(stationId).getPlaybackState() == playbackState) {
+            return stationList;
+        }
+        Station newStation = new Station(stationList.get(stationId));
+        newStation.setPlaybackState(playbackState);
+        return stationList.with(stationId, newStation);
     }
 
 
     /* Finds station when given its Uri */
-    public static Station findStation(ArrayList<Station> stationList, Uri streamUri) {
-
-        // make sure list and uri are not null
-        if (stationList == null || streamUri == null) {
+    public static Station findStation(StationList stationList, Uri streamUri) {
+        // make sure list is not null - look up station in index of list
+        if (stationList == null) {
             return null;
         }
+        return stationList.findStation(streamUri);
+    }
 
-        // traverse list of stations
-        for (int i = 0; i < stationList.size(); i++) {
-            Station station = stationList.get(i);
-            if (station.getStreamUri().equals(streamUri)) {
-                return station;
-            }
+
+    /* Finds ID of station when given its Uri */
+    public static int findStationId(StationList stationList, Uri streamUri) {
+        // make sure list is not null - look up position in index of list
+        if (stationList == null) {
+            return -1;
         }
+        return stationList.findStationId(streamUri);
+    }
 
-        // return null if nothing was found
-        return null;
+
+    /* Finds ID of station when given its playlist file */
+    public static int findStationId(StationList stationList, File playlistFile) {
+        // make sure list is not null - look up position in index of list
+        if (stationList == null) {
+            return -1;
+        }
+        return stationList.findStationId(playlistFile);
     }
 
 
+    /* Checks if playlist file of given station has been removed or renamed */
+    private static boolean isPlaylistFileGone(Station station, CollectionWatcher.Delta delta) {
+        File playlistFile = station.getStationPlaylistFile();
+        return playlistFile == null || delta.getRemovedPlaylistFiles().contains(playlistFile) || !playlistFile.exists();
+    }
 
-    /* Finds ID of station when given its Uri */
-    public static int findStationId(ArrayList<Station> stationList, Uri streamUri) {
 
-        // make sure list and uri are not null
-        if (stationList == null || streamUri == null) {
-            return -1;
+    /* Applies changes found by CollectionWatcher to a copy of given list of stations */
+    public static StationList applyCollectionDelta(StationList stationList, CollectionWatcher.Delta delta) {
+        StationList newStationList = stationList;
+
+        // added or changed stations - updates first, so that a renamed file keeps its station
+        ArrayList<Station> addedStations = new ArrayList<Station>();
+        for (Station station : delta.getUpdatedStations()) {
+            int stationId = findStationId(newStationList, station.getStationPlaylistFile());
+            if (stationId == -1) {
+                // same stream under a new file: a rename only if the old file is gone - otherwise it is a second station (e.g. a copy)
+                stationId = findStationId(newStationList, station.getStreamUri());
+                if (stationId != -1 && !isPlaylistFileGone(newStationList.get(stationId), delta)) {
+                    stationId = -1;
+                }
+            }
+            Station newStation = new Station(station);
+            if (stationId != -1) {
+                transferPlaybackState(newStationList.get(stationId), newStation);
+                newStationList = newStationList.with(stationId, newStation);
+            } else {
+                addedStations.add(newStation);
+            }
+        }
+        // append new stations at once - indexes are extended once, not rebuilt per station
+        newStationList = newStationList.plusAll(addedStations);
+
+        // removed stations
+        for (File playlistFile : delta.getRemovedPlaylistFiles()) {
+            int stationId = findStationId(newStationList, playlistFile);
+            if (stationId != -1) {
+                newStationList = newStationList.minus(stationId);
+            }
         }
 
-        // traverse list of stations
-        for (int i = 0; i < stationList.size(); i++) {
-            Station station = stationList.get(i);
-            if (station.getStreamUri().equals(streamUri)) {
-                return i;
+        // changed images - re-reading the file object updates the image size
+        for (File imageFile : delta.getChangedImageFiles()) {
+            for (int i = 0; i < newStationList.size(); i++) {
+                if (imageFile.equals(newStationList.get(i).getStationImageFile())) {
+                    Station newStation = new Station(newStationList.get(i));
+                    newStation.setStationImageFile(imageFile.getParentFile());
+                    newStationList = newStationList.with(i, newStation);
+                }
             }
         }
 
-        // return -1 if nothing was found
-        return -1;
+        return newStationList;
     }
 
 
-    /* Sorts list of stations */
-    public static ArrayList<Station> sortAndReturnStationList(ArrayList<Station> stationList) {
-        Collections.sort(stationList, new Comparator<Station>() {
-            @Override
-            public int compare(Station station1, Station station2) {
-                // Compares two stations: returns "1" if name if this station is greater than name of given station
-                return station1.getStationName().compareToIgnoreCase(station2.getStationName());
-            }
-        });
-        return stationList;
+    /* Copies values that are set during playback from one station to another */
+    private static void transferPlaybackState(Station source, Station target) {
+        target.setPlaybackState(source.getPlaybackState());
+        target.setSelectionState(source.getSelectionState());
+        target.setMetadata(source.getMetadata());
+        target.setMimeType(source.getMimeType());
+        target.setChannelCount(source.getChannelCount());
+        target.setSampleRate(source.getSampleRate());
+        target.setBitrate(source.getBitrate());
     }
 
 
-
-    /* Sorts list of stations */
-    public static void sortStationList(ArrayList<Station> stationList) {
-        Collections.sort(stationList, new Comparator<Station>() {
-            @Override
-            public int compare(Station station1, Station station2) {
-                // Compares two stations: returns "1" if name if this station is greater than name of given station
-                return station1.getStationName().compareToIgnoreCase(station2.getStationName());
-            }
-        });
+    /* Sorts list of stations - returns given list, if it is sorted already */
+    public static StationList sortStationList(StationList stationList) {
+        return stationList.sorted(STATION_NAME_COMPARATOR);
     }
 
 
     /* Load list of stations from storage */
-    public static ArrayList<Station> loadStationListFromStorage(Context context) {
+    public static StationList loadStationListFromStorage(Context context) {
 
         // get collection folder
         File folder = StorageHelper.getCollectionDirectory(context);
@@ -140,12 +186,6 @@ public final class StationListHelper implements TransistorKeys {
             }
         }
 
-        // create array of Files from folder
-        File[] listOfFiles = folder.listFiles();
-
-        // initialize list
-        ArrayList<Station> stationList = new ArrayList<Station>();
-
         // get Uri of currently playing station - CASE: PlayerService is active, but Activity has been killed
         String urlString = PreferenceManager.getDefaultSharedPreferences(context).getString(PREF_STATION_URL, null);
         Uri uri = null;
@@ -153,24 +193,15 @@ public final class StationListHelper implements TransistorKeys {
             uri = Uri.parse(urlString);
         }
 
-        // fill list of stations
-        if (listOfFiles != null) {
-            for (File file : listOfFiles) {
-                if (file.isFile() && file.toString().endsWith(".m3u")) {
-                    // create new station from file
-                    Station newStation = new Station(file);
-                    if (newStation.getStreamUri() != null) {
-                        // recreate playback state - if Activity was killed
-                        if (newStation.getStreamUri().equals(uri)) {
-                            // set playback state and set mStation value
-                            LogHelper.v(LOG_TAG, "Shared preferences has playback information for " + newStation.getStationName() + ": Playback running.");
-                            newStation.setPlaybackState(PLAYBACK_STATE_STARTED);
-                        }
-                        // add new station to list
-                        stationList.add(newStation);
-                    }
-                }
-            }
+        // read playlist files - unchanged files are restored from snapshot, changed files are parsed in parallel
+        StationList stationList = new StationList(CollectionLoader.loadStations(folder, CollectionSnapshot.getSnapshotFile(context)));
+
+        // recreate playback state - if Activity was killed
+        int stationId = stationList.findStationId(uri);
+        if (stationId != -1) {
+            // set playback state and set mStation value
+            LogHelper.v(LOG_TAG, "Shared preferences has playback information for " + stationList.get(stationId).getStationName() + ": Playback running.");
+            stationList = setPlaybackState(stationList, stationId, PLAYBACK_STATE_STARTED);
         }
 
         LogHelper.v(LOG_TAG, "Finished initial read operation from storage. Stations found: " + stationList.size());
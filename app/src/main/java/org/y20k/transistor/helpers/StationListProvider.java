@@ -22,9 +22,11 @@ import android.preference.PreferenceManager;
 import android.support.v4.media.MediaMetadataCompat;
 
 import org.y20k.transistor.core.Station;
+import org.y20k.transistor.core.StationList;
 
-import java.util.ArrayList;
+import java.io.File;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -84,6 +86,7 @@ public class StationListProvider implements TransistorKeys {
 //                .putLong(MediaMetadataCompat.METADATA_KEY_NUM_TRACKS, totalTrackCount)
 //                .putString(METADATA_CUSTOM_KEY_IMAGE_FILE, station.getStationImageFile().getPath())
 //                .putString(METADATA_CUSTOM_KEY_PLAYLIST_FILE, station.getStationPlaylistFile().getPath())
+                .putLong(METADATA_CUSTOM_KEY_BUFFER_PROFILE, station.getBufferProfile())
                 .build();
     }
 
@@ -155,6 +158,47 @@ public class StationListProvider implements TransistorKeys {
     }
 
 
+    /* Applies changes found by CollectionWatcher - returns true if list of stations has changed */
+    public synchronized boolean applyCollectionDelta(CollectionWatcher.Delta delta) {
+        if (mCurrentState != State.INITIALIZED) {
+            // changes will be picked up by retrieveStations
+            return false;
+        }
+        boolean changed = false;
+
+        // added or changed stations: drop old entries for same file or stream, then add new entry
+        for (Station station : delta.getUpdatedStations()) {
+            removeStations(station.getStationPlaylistFile().getPath(), station.getStreamUri().toString());
+            MediaMetadataCompat item = buildMediaMetadata(station);
+            mStationListById.put(item.getString(MediaMetadataCompat.METADATA_KEY_MEDIA_ID), item);
+            changed = true;
+        }
+
+        // removed stations
+        for (File playlistFile : delta.getRemovedPlaylistFiles()) {
+            changed |= removeStations(playlistFile.getPath(), null);
+        }
+
+        return changed;
+    }
+
+
+    /* Removes entries matching given playlist file path or stream uri */
+    private boolean removeStations(String playlistFilePath, String streamUri) {
+        boolean removed = false;
+        Iterator<MediaMetadataCompat> iterator = mStationListById.values().iterator();
+        while (iterator.hasNext()) {
+            MediaMetadataCompat item = iterator.next();
+            if (playlistFilePath.equals(item.getString(METADATA_CUSTOM_KEY_PLAYLIST_FILE))
+                    || (streamUri != null && streamUri.equals(item.getString(MediaMetadataCompat.METADATA_KEY_MEDIA_URI)))) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+
     /* Return current state */
     public boolean isInitialized() {
         return mCurrentState == State.INITIALIZED;
@@ -199,7 +243,7 @@ public class StationListProvider implements TransistorKeys {
         if (mCurrentState == State.NON_INITIALIZED) {
             mCurrentState = State.INITIALIZING;
 
-            ArrayList<Station> stationList = StationListHelper.loadStationListFromStorage(context);
+            StationList stationList = StationListHelper.loadStationListFromStorage(context);
             if (stationList != null) {
                 for (Station station : stationList) {
                     MediaMetadataCompat item = buildMediaMetadata(station);
@@ -228,6 +272,7 @@ public class StationListProvider implements TransistorKeys {
 //                .putLong(MediaMetadataCompat.METADATA_KEY_NUM_TRACKS, totalTrackCount)
                 .putString(METADATA_CUSTOM_KEY_IMAGE_FILE, station.getStationImageFile().getPath())
                 .putString(METADATA_CUSTOM_KEY_PLAYLIST_FILE, station.getStationPlaylistFile().getPath())
+                .putLong(METADATA_CUSTOM_KEY_BUFFER_PROFILE, station.getBufferProfile())
                 .build();
     }
 
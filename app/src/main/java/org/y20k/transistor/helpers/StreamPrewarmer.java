@@ -0,0 +1,281 @@
+/**
+ * StreamPrewarmer.java
+ * Implements the StreamPrewarmer class
+ * A StreamPrewarmer opens connections to selected stations ahead of playback
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.y20k.transistor.core.Station;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * StreamPrewarmer class
+ * Selecting a station warms it and its list neighbors: DNS is resolved, redirects are followed and
+ * the result is stored in StreamProbeCache - then the connection is closed again. Only the selected
+ * station on an unmetered network keeps its connection open, with up to MAX_PREBUFFER_BYTES of audio
+ * read ahead. An open connection nobody reads still receives data until the socket's receive buffer
+ * is full, so at most one connection costs MAX_PREBUFFER_BYTES plus one receive buffer (a few hundred
+ * KB at most), for no longer than WARM_CONNECTION_LIFETIME. Warmed connections are handed to the player.
+ */
+public final class StreamPrewarmer implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StreamPrewarmer.class.getSimpleName();
+
+
+    /* Keys */
+    private static final int MAX_WARMED_STATIONS = 3;
+    private static final long WARM_CONNECTION_LIFETIME = 15000L;
+    private static final int MAX_PREBUFFER_BYTES = 64 * 1024;
+    private static final long MAX_PREBUFFER_TIME = 2000L;
+
+
+    /* Main class variables */
+    private static final HashMap<String, WarmConnection> mWarmConnections = new HashMap<String, WarmConnection>();
+    private static final HashSet<String> mPendingUrls = new HashSet<String>();
+    private static final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(MAX_WARMED_STATIONS, MAX_WARMED_STATIONS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static final Handler mExpiryHandler = new Handler(Looper.getMainLooper());
+    private static String mHeldUrl = null;
+
+
+    /* Lets idle executor threads time out */
+    static {
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+
+    /* Warms station at given position and its neighbors - call on main thread */
+    public static void prewarm(Context context, List<Station> stationList, int position) {
+        if (position < 0 || position >= stationList.size()) {
+            return;
+        }
+
+        // selected station first, then its neighbors
+        final ArrayList<String> urls = new ArrayList<String>(MAX_WARMED_STATIONS);
+        int[] positions = {position, position + 1, position - 1};
+        for (int p : positions) {
+            if (p >= 0 && p < stationList.size() && stationList.get(p).getStreamUri() != null) {
+                String url = stationList.get(p).getStreamUri().toString();
+                if (!urls.contains(url) && urls.size() < MAX_WARMED_STATIONS) {
+                    urls.add(url);
+                }
+            }
+        }
+        // only the selected station gets a held connection - none on metered networks, every byte received costs the user
+        Station selectedStation = stationList.get(position);
+        String heldUrl = null;
+        if (selectedStation.getStreamUri() != null && isUnmeteredNetwork(context)) {
+            heldUrl = selectedStation.getStreamUri().toString();
+        }
+
+        synchronized (mWarmConnections) {
+            mHeldUrl = heldUrl;
+
+            // drop connections that are not held for the selected station
+            Iterator<Map.Entry<String, WarmConnection>> iterator = mWarmConnections.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, WarmConnection> entry = iterator.next();
+                if (!entry.getKey().equals(mHeldUrl)) {
+                    entry.getValue().release();
+                    iterator.remove();
+                }
+            }
+            if (urls.isEmpty()) {
+                // neither selected station nor its neighbors have a stream
+                return;
+            }
+
+            // start warming - only the selected station keeps its connection
+            for (int i = 0; i < urls.size(); i++) {
+                final String url = urls.get(i);
+                final boolean holdStationConnection = url.equals(mHeldUrl);
+                if (!mWarmConnections.containsKey(url) && !mPendingUrls.contains(url)) {
+                    mPendingUrls.add(url);
+                    mExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            warm(url, holdStationConnection);
+                        }
+                    });
+                }
+            }
+        }
+
+        // schedule release of unused connections
+        mExpiryHandler.removeCallbacks(mExpiryRunnable);
+        mExpiryHandler.postDelayed(mExpiryRunnable, WARM_CONNECTION_LIFETIME);
+    }
+
+
+    /* Hands out warmed connection for given stream - null if there is none */
+    public static WarmConnection take(String url) {
+        synchronized (mWarmConnections) {
+            WarmConnection warmConnection = mWarmConnections.remove(url);
+            if (warmConnection != null && warmConnection.isExpired()) {
+                warmConnection.release();
+                return null;
+            }
+            return warmConnection;
+        }
+    }
+
+
+    /* Resolves and connects to given stream - the connection is held and pre-buffered only if requested - runs on executor */
+    private static void warm(String url, boolean holdConnection) {
+        HttpURLConnection connection = null;
+        try {
+            // resolve, follow redirects, connect and read headers - and remember what was found
+            connection = StreamProbeCache.openConnection(url);
+            StreamProbeCache.store(url, connection);
+            if (!holdConnection || connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                // release right away - DNS and probe result stay cached, no stream data piles up
+                connection.disconnect();
+                LogHelper.v(LOG_TAG, "Resolved " + url);
+                return;
+            }
+            byte[] prebufferedBytes = readPrebuffer(connection.getInputStream());
+
+            synchronized (mWarmConnections) {
+                if (!url.equals(mHeldUrl) || !mWarmConnections.isEmpty()) {
+                    // selection has moved on in the meantime
+                    connection.disconnect();
+                    return;
+                }
+                mWarmConnections.put(url, new WarmConnection(connection, prebufferedBytes));
+            }
+            LogHelper.v(LOG_TAG, "Warmed " + url + " (" + prebufferedBytes.length + " bytes buffered)");
+
+        } catch (IOException e) {
+            LogHelper.w(LOG_TAG, "Unable to warm " + url + ": " + e.toString());
+            if (connection != null) {
+                connection.disconnect();
+            }
+        } finally {
+            synchronized (mWarmConnections) {
+                mPendingUrls.remove(url);
+            }
+        }
+    }
+
+
+    /* Reads the beginning of a stream - limited by size and time */
+    private static byte[] readPrebuffer(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(MAX_PREBUFFER_BYTES);
+        byte[] buffer = new byte[8 * 1024];
+        long start = SystemClock.elapsedRealtime();
+        while (outputStream.size() < MAX_PREBUFFER_BYTES && SystemClock.elapsedRealtime() - start < MAX_PREBUFFER_TIME) {
+            int bytesRead = inputStream.read(buffer, 0, Math.min(buffer.length, MAX_PREBUFFER_BYTES - outputStream.size()));
+            if (bytesRead == -1) {
+                break;
+            }
+            outputStream.write(buffer, 0, bytesRead);
+        }
+        return outputStream.toByteArray();
+    }
+
+
+    /* Checks if active network is not metered - e.g. Wi-Fi */
+    private static boolean isUnmeteredNetwork(Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        return connectivityManager != null && !connectivityManager.isActiveNetworkMetered();
+    }
+
+
+    /* Releases warmed connections that have not been used in time - runs on main thread */
+    private static final Runnable mExpiryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (mWarmConnections) {
+                Iterator<WarmConnection> iterator = mWarmConnections.values().iterator();
+                while (iterator.hasNext()) {
+                    WarmConnection warmConnection = iterator.next();
+                    if (warmConnection.isExpired()) {
+                        warmConnection.release();
+                        iterator.remove();
+                    }
+                }
+                if (!mWarmConnections.isEmpty()) {
+                    // connections that were warmed late get their full lifetime
+                    mExpiryHandler.postDelayed(this, WARM_CONNECTION_LIFETIME);
+                }
+            }
+        }
+    };
+
+
+    /**
+     * Inner class: An open connection to a stream, plus audio read ahead of playback
+     */
+    public static final class WarmConnection {
+
+        /* Main class variables */
+        private final HttpURLConnection mConnection;
+        private final byte[] mPrebufferedBytes;
+        private final long mWarmTime;
+
+        /* Constructor */
+        private WarmConnection(HttpURLConnection connection, byte[] prebufferedBytes) {
+            mConnection = connection;
+            mPrebufferedBytes = prebufferedBytes;
+            mWarmTime = SystemClock.elapsedRealtime();
+        }
+
+        /* Getter for connection */
+        public HttpURLConnection getConnection() {
+            return mConnection;
+        }
+
+        /* Returns stream from its beginning - pre-buffered bytes first, then the rest of the connection */
+        public InputStream getInputStream() throws IOException {
+            if (mPrebufferedBytes == null || mPrebufferedBytes.length == 0) {
+                return mConnection.getInputStream();
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(mPrebufferedBytes), mConnection.getInputStream());
+        }
+
+        /* Checks if connection has been held for too long */
+        private boolean isExpired() {
+            return SystemClock.elapsedRealtime() - mWarmTime >= WARM_CONNECTION_LIFETIME;
+        }
+
+        /* Disconnects connection */
+        public void release() {
+            mConnection.disconnect();
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -0,0 +1,455 @@
+/**
+ * StreamProbeCache.java
+ * Implements the StreamProbeCache class
+ * A StreamProbeCache remembers what a stream address resolved to (redirects, content type, ICY headers)
+ *
+ * This file is part of
+ * TRANSISTOR - Radio App for Android
+ *
+ * Copyright (c) 2015-20 - Y20K.org
+ * Licensed under the MIT-License
+ * http://opensource.org/licenses/MIT
+ */
+
+
+package org.y20k.transistor.helpers;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * StreamProbeCache class
+ * Results younger than PROBE_FRESH_TIME are used as they are. Older results (up to PROBE_MAX_AGE)
+ * are still used, but get revalidated in the background. Everything else is probed right away.
+ */
+public final class StreamProbeCache implements TransistorKeys {
+
+    /* Define log tag */
+    private static final String LOG_TAG = StreamProbeCache.class.getSimpleName();
+
+
+    /* Keys */
+    private static final String PROBE_CACHE_FILE_NAME = "stream_probes.cache";
+    private static final int PROBE_CACHE_MAGIC = 0x54525043; // "TRPC"
+    private static final int PROBE_CACHE_VERSION = 1;
+    private static final int PROBE_CACHE_MAX_ENTRIES = 256;
+    private static final long PROBE_FRESH_TIME = TimeUnit.HOURS.toMillis(6);
+    private static final long PROBE_MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final int PROBE_TIMEOUT = 5000;
+    private static final int MAX_REDIRECTS = 5;
+
+
+    /* Main class variables */
+    private static final LinkedHashMap<String, ProbeResult> mProbeResults = new LinkedHashMap<String, ProbeResult>(64, 0.75f, true);
+    private static final HashSet<String> mRevalidating = new HashSet<String>();
+    private static final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static File mCacheFile;
+    private static boolean mLoaded = false;
+    private static boolean mSavePending = false;
+
+
+    /* Sets up disk store and loads it in background - call from Application.onCreate */
+    public static void initialize(Context context) {
+        synchronized (mProbeResults) {
+            mCacheFile = new File(context.getCacheDir(), PROBE_CACHE_FILE_NAME);
+        }
+        mExecutor.allowCoreThreadTimeOut(true);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ensureLoaded();
+            }
+        });
+    }
+
+
+    /* Returns cached result for given url - probes network if nothing usable is cached */
+    public static ProbeResult getOrProbe(String url) throws IOException {
+        ProbeResult result = getAndRevalidate(url);
+        if (result != null) {
+            return result;
+        }
+        return probe(url);
+    }
+
+
+    /* Returns cached result for given url and refreshes stale results in background - null if nothing usable is cached */
+    public static ProbeResult getAndRevalidate(String url) {
+        ProbeResult result = get(url);
+        if (result != null && result.getAge() > PROBE_FRESH_TIME) {
+            // use stale result now, refresh it for next time
+            revalidateAsync(url);
+        }
+        return result;
+    }
+
+
+    /* Returns cached result for given url - null if there is none or if it is too old */
+    public static ProbeResult get(String url) {
+        ensureLoaded();
+        String key = normalizeUrl(url);
+        synchronized (mProbeResults) {
+            ProbeResult result = mProbeResults.get(key);
+            if (result != null && result.getAge() > PROBE_MAX_AGE) {
+                mProbeResults.remove(key);
+                return null;
+            }
+            return result;
+        }
+    }
+
+
+    /* Probes given url and stores result */
+    public static ProbeResult probe(String url) throws IOException {
+        HttpURLConnection connection = openConnection(url);
+        try {
+            return store(url, connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+
+    /* Opens a connection to given url, follows redirects and requests ICY metadata - caller has to disconnect */
+    public static HttpURLConnection openConnection(String url) throws IOException {
+        return openConnection(url, null);
+    }
+
+
+    /* Opens a connection to given url and stamps DNS, connect and first byte into given startup session (may be null) */
+    public static HttpURLConnection openConnection(String url, StartupTimer.Session session) throws IOException {
+        URL location = new URL(url);
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            if (session != null) {
+                // resolve up front to time the lookup - the connection re-uses the system resolver cache
+                InetAddress.getAllByName(location.getHost());
+                session.mark(StartupTimer.STAGE_DNS);
+            }
+            HttpURLConnection connection = (HttpURLConnection) location.openConnection();
+            connection.setConnectTimeout(PROBE_TIMEOUT);
+            connection.setReadTimeout(PROBE_TIMEOUT);
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestProperty("Icy-MetaData", "1");
+            if (session != null) {
+                connection.connect();
+                session.mark(StartupTimer.STAGE_CONNECT);
+            }
+            int status = connection.getResponseCode();
+            if (session != null) {
+                session.mark(StartupTimer.STAGE_FIRST_BYTE);
+            }
+            if (status == HttpURLConnection.HTTP_MOVED_TEMP || status == HttpURLConnection.HTTP_MOVED_PERM
+                    || status == HttpURLConnection.HTTP_SEE_OTHER || status == 307 || status == 308) {
+                // follow redirect - may switch between http and https
+                String redirectLocation = connection.getHeaderField("Location");
+                connection.disconnect();
+                if (redirectLocation == null) {
+                    throw new IOException("Redirect without location: " + location);
+                }
+                LogHelper.i(LOG_TAG, "Following a redirect.");
+                location = new URL(location, redirectLocation);
+                continue;
+            }
+            return connection;
+        }
+        throw new IOException("Too many redirects: " + url);
+    }
+
+
+    /* Stores result read from the headers of given connection */
+    public static ProbeResult store(String url, HttpURLConnection connection) {
+        ProbeResult result = new ProbeResult();
+        result.mFinalUrl = connection.getURL().toString();
+        result.mProbeTime = System.currentTimeMillis();
+        result.mContentDisposition = connection.getHeaderField("Content-Disposition");
+        String contentTypeHeader = connection.getContentType();
+        if (contentTypeHeader != null) {
+            // split "type; charset=xyz" without regular expressions
+            String[] parts = contentTypeHeader.split(";");
+            result.mContentType = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if (part.toLowerCase(Locale.ENGLISH).startsWith("charset=")) {
+                    result.mCharset = part.substring(8).trim().toLowerCase(Locale.ENGLISH);
+                }
+            }
+        }
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            String name = header.getKey();
+            if (name != null && name.toLowerCase(Locale.ENGLISH).startsWith("icy-") && header.getValue() != null && !header.getValue().isEmpty()) {
+                result.mIcyHeaders.put(name.toLowerCase(Locale.ENGLISH), header.getValue().get(0));
+            }
+        }
+
+        // only successful probes are worth remembering
+        try {
+            if (result.mContentType != null && connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                put(normalizeUrl(url), result);
+            }
+        } catch (IOException e) {
+            LogHelper.w(LOG_TAG, "Unable to get response code: " + e.toString());
+        }
+        return result;
+    }
+
+
+    /* Removes result for given url - e.g. when playback fails */
+    public static void invalidate(String url) {
+        String key = normalizeUrl(url);
+        synchronized (mProbeResults) {
+            if (mProbeResults.remove(key) != null) {
+                scheduleSave();
+            }
+        }
+    }
+
+
+    /* Probes given url in background - ignores urls that are already being revalidated */
+    private static void revalidateAsync(final String url) {
+        synchronized (mRevalidating) {
+            if (!mRevalidating.add(url)) {
+                return;
+            }
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    probe(url);
+                    LogHelper.v(LOG_TAG, "Revalidated probe result for " + url);
+                } catch (IOException e) {
+                    LogHelper.w(LOG_TAG, "Unable to revalidate probe result for " + url + ": " + e.toString());
+                } finally {
+                    synchronized (mRevalidating) {
+                        mRevalidating.remove(url);
+                    }
+                }
+            }
+        });
+    }
+
+
+    /* Puts result into cache - evicts least recently used results */
+    private static void put(String key, ProbeResult result) {
+        synchronized (mProbeResults) {
+            mProbeResults.put(key, result);
+            Iterator<String> iterator = mProbeResults.keySet().iterator();
+            while (mProbeResults.size() > PROBE_CACHE_MAX_ENTRIES && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            scheduleSave();
+        }
+    }
+
+
+    /* Normalizes url: lower case scheme and host, no default port, no fragment */
+    public static String normalizeUrl(String url) {
+        String trimmedUrl = url.trim();
+        try {
+            URL parsedUrl = new URL(trimmedUrl);
+            String protocol = parsedUrl.getProtocol().toLowerCase(Locale.ENGLISH);
+            StringBuilder sb = new StringBuilder(trimmedUrl.length());
+            sb.append(protocol).append("://").append(parsedUrl.getHost().toLowerCase(Locale.ENGLISH));
+            int port = parsedUrl.getPort();
+            if (port != -1 && port != parsedUrl.getDefaultPort()) {
+                sb.append(':').append(port);
+            }
+            String file = parsedUrl.getFile();
+            sb.append(file.length() > 0 ? file : "/");
+            return sb.toString();
+        } catch (MalformedURLException e) {
+            return trimmedUrl;
+        }
+    }
+
+
+    /* Loads disk store once */
+    private static void ensureLoaded() {
+        synchronized (mProbeResults) {
+            if (mLoaded || mCacheFile == null) {
+                return;
+            }
+            mLoaded = true;
+            if (!mCacheFile.exists()) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mCacheFile)))) {
+                if (in.readInt() != PROBE_CACHE_MAGIC || in.readInt() != PROBE_CACHE_VERSION) {
+                    LogHelper.w(LOG_TAG, "Discarding probe cache: unknown format.");
+                    return;
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    ProbeResult result = new ProbeResult();
+                    result.mFinalUrl = readNullableString(in);
+                    result.mContentType = readNullableString(in);
+                    result.mCharset = readNullableString(in);
+                    result.mContentDisposition = readNullableString(in);
+                    result.mProbeTime = in.readLong();
+                    int headerCount = in.readInt();
+                    for (int j = 0; j < headerCount; j++) {
+                        result.mIcyHeaders.put(in.readUTF(), in.readUTF());
+                    }
+                    if (result.getAge() <= PROBE_MAX_AGE) {
+                        mProbeResults.put(key, result);
+                    }
+                }
+                LogHelper.v(LOG_TAG, "Probe cache loaded. Entries: " + mProbeResults.size());
+            } catch (IOException e) {
+                LogHelper.w(LOG_TAG, "Discarding probe cache: " + e.toString());
+                mProbeResults.clear();
+            }
+        }
+    }
+
+
+    /* Saves disk store in background - multiple changes end up in one write */
+    private static void scheduleSave() {
+        if (mSavePending || mCacheFile == null) {
+            return;
+        }
+        mSavePending = true;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                save();
+            }
+        });
+    }
+
+
+    /* Writes disk store atomically: to a temporary file first, then renamed over the old store */
+    private static void save() {
+        LinkedHashMap<String, ProbeResult> probeResults;
+        File cacheFile;
+        synchronized (mProbeResults) {
+            mSavePending = false;
+            probeResults = new LinkedHashMap<String, ProbeResult>(mProbeResults);
+            cacheFile = mCacheFile;
+        }
+        File temporaryFile = new File(cacheFile.getPath() + ".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            out.writeInt(PROBE_CACHE_MAGIC);
+            out.writeInt(PROBE_CACHE_VERSION);
+            out.writeInt(probeResults.size());
+            for (Map.Entry<String, ProbeResult> entry : probeResults.entrySet()) {
+                ProbeResult result = entry.getValue();
+                out.writeUTF(entry.getKey());
+                writeNullableString(out, result.mFinalUrl);
+                writeNullableString(out, result.mContentType);
+                writeNullableString(out, result.mCharset);
+                writeNullableString(out, result.mContentDisposition);
+                out.writeLong(result.mProbeTime);
+                out.writeInt(result.mIcyHeaders.size());
+                for (Map.Entry<String, String> header : result.mIcyHeaders.entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeUTF(header.getValue());
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            LogHelper.e(LOG_TAG, "Unable to write probe cache: " + e.toString());
+            temporaryFile.delete();
+            return;
+        }
+        if (!temporaryFile.renameTo(cacheFile)) {
+            LogHelper.e(LOG_TAG, "Unable to replace probe cache file.");
+            temporaryFile.delete();
+        }
+    }
+
+
+    /* Reads a string that may be null */
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+
+    /* Writes a string that may be null */
+    private static void writeNullableString(DataOutputStream out, String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            out.writeUTF(string);
+        }
+    }
+
+
+    /**
+     * Inner class: What a stream address resolved to
+     */
+    public static final class ProbeResult {
+
+        /* Main class variables */
+        private String mFinalUrl;
+        private String mContentType;
+        private String mCharset;
+        private String mContentDisposition;
+        private long mProbeTime;
+        private final HashMap<String, String> mIcyHeaders = new HashMap<String, String>();
+
+        /* Getter for address after following redirects */
+        public String getFinalUrl() {
+            return mFinalUrl;
+        }
+
+        /* Getter for content type (lower case, without charset) */
+        public String getContentType() {
+            return mContentType;
+        }
+
+        /* Getter for charset - null if server did not send one */
+        public String getCharset() {
+            return mCharset;
+        }
+
+        /* Getter for Content-Disposition header - null if server did not send one */
+        public String getContentDisposition() {
+            return mContentDisposition;
+        }
+
+        /* Getter for ICY header (e.g. "icy-name", "icy-br") - null if server did not send it */
+        public String getIcyHeader(String name) {
+            return mIcyHeaders.get(name);
+        }
+
+        /* Getter for age of result in milliseconds */
+        public long getAge() {
+            return System.currentTimeMillis() - mProbeTime;
+        }
+
+        @Override
+        public String toString() {
+            return "ProbeResult [Type=" + mContentType + ", Charset=" + mCharset + ", FinalUrl=" + mFinalUrl + ", Age=" + getAge() + "ms]";
+        }
+    }
+    /**
+     * End of inner class
+     */
+
+}
@@ -25,22 +25,16 @@ public interface TransistorKeys {
     String ACTION_PLAY = "org.y20k.transistor.action.PLAY";
     String ACTION_STOP = "org.y20k.transistor.action.STOP";
     String ACTION_DISMISS = "org.y20k.transistor.action.DISMISS";
-    String ACTION_PLAYBACK_STATE_CHANGED = "org.y20k.transistor.action.PLAYBACK_STATE_CHANGED";
-    String ACTION_METADATA_CHANGED = "org.y20k.transistor.action.METADATA_CHANGED";
     String ACTION_SHOW_PLAYER = "org.y20k.transistor.action.SHOW_PLAYER";
-    String ACTION_TIMER_RUNNING = "org.y20k.transistor.action.TIMER_RUNNING";
     String ACTION_TIMER_START = "org.y20k.transistor.action.TIMER_START";
     String ACTION_TIMER_STOP = "org.y20k.transistor.action.TIMER_STOP";
 
     /* EXTRAS */
-    String EXTRA_PLAYBACK_STATE_PREVIOUS_STATION = "PLAYBACK_STATE_PREVIOUS_STATION";
     String EXTRA_PLAYBACK_STATE = "PLAYBACK_STATE";
     String EXTRA_STATION = "STATION";
     String EXTRA_LAST_STATION = "LAST_STATION";
     String EXTRA_STREAM_URI = "STREAM_URI";
     String EXTRA_TIMER_DURATION = "TIMER_DURATION";
-    String EXTRA_TIMER_REMAINING = "TIMER_REMAINING";
-    String EXTRA_ERROR_OCCURRED = "ERROR_OCCURRED";
 
     /* ARGS */
     String ARG_INFOSHEET_TITLE = "INFOSHEET_TITLE";
@@ -117,6 +111,13 @@ public interface TransistorKeys {
     int CONNECTION_TYPE_OTHER = 2;
     int CONNECTION_TYPE_ERROR = 3;
 
+    /* BUFFER PROFILES */
+    int BUFFER_PROFILE_BALANCED = 0; // default
+    int BUFFER_PROFILE_LOW_LATENCY = 1;
+    int BUFFER_PROFILE_FLAKY_NETWORK = 2;
+    String[] BUFFER_PROFILE_KEYS = {"balanced", "low-latency", "flaky-network"}; // index equals profile - used in playlist files
+    String PLAYLIST_ATTRIBUTE_BUFFER_PROFILE = "transistor-buffer-profile";
+
     /* FETCH RESULTS */
     int CONTAINS_NO_STREAM = 0;
     int CONTAINS_ONE_STREAM = 1;
@@ -125,6 +126,7 @@ public interface TransistorKeys {
     /* KEYS */
     String METADATA_CUSTOM_KEY_IMAGE_FILE = "METADATA_CUSTOM_KEY_IMAGE_FILE";
     String METADATA_CUSTOM_KEY_PLAYLIST_FILE = "METADATA_CUSTOM_KEY_PLAYLIST_FILE";
+    String METADATA_CUSTOM_KEY_BUFFER_PROFILE = "METADATA_CUSTOM_KEY_BUFFER_PROFILE";
     String SELECT_STREAM_KEY_NAME = "SELECT_STREAM_KEY_NAME";
     String SELECT_STREAM_KEY_URL = "SELECT_STREAM_KEY_URL";
 